@@ -0,0 +1,78 @@
+package com.yat3s.library.adapter;
+
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares head inserts and random moves between {@link ArrayList} and {@link ChunkedList}
+ * at 10k, 100k and 1M items, results are printed to logcat.
+ */
+
+public class ChunkedListBenchmark extends AndroidTestCase {
+    private static final String TAG = "ChunkedListBenchmark";
+    private static final int[] SIZES = {10000, 100000, 1000000};
+    private static final int OPERATION_COUNT = 1000;
+
+    public void testBenchmarkHeadInserts() throws Exception {
+        for (int size : SIZES) {
+            // Warm up both paths
+            runHeadInserts(fill(new ArrayList<Integer>(), size));
+            runHeadInserts(fill(new ChunkedList<Integer>(), size));
+
+            long arrayNanos = runHeadInserts(fill(new ArrayList<Integer>(), size));
+            long chunkedNanos = runHeadInserts(fill(new ChunkedList<Integer>(), size));
+            Log.d(TAG, "Head inserts at " + size + ", ArrayList: " + arrayNanos / 1000 + "us, " +
+                    "ChunkedList: " + chunkedNanos / 1000 + "us for " + OPERATION_COUNT + " " +
+                    "inserts");
+        }
+    }
+
+    public void testBenchmarkRandomMoves() throws Exception {
+        for (int size : SIZES) {
+            List<Integer> arrayList = fill(new ArrayList<Integer>(), size);
+            ChunkedList<Integer> chunkedList = fill(new ChunkedList<Integer>(), size);
+            runRandomMoves(arrayList);
+            runRandomMoves(chunkedList);
+
+            long arrayNanos = runRandomMoves(arrayList);
+            long chunkedNanos = runRandomMoves(chunkedList);
+            assertEquals(arrayList, chunkedList);
+            Log.d(TAG, "Random moves at " + size + ", ArrayList: " + arrayNanos / 1000 + "us, " +
+                    "ChunkedList: " + chunkedNanos / 1000 + "us for " + OPERATION_COUNT + " " +
+                    "moves");
+        }
+    }
+
+    private static long runHeadInserts(List<Integer> list) {
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            list.add(0, i);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Same seed for both lists, so they stay equal.
+     */
+    private static long runRandomMoves(List<Integer> list) {
+        Random random = new Random(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            int from = random.nextInt(list.size());
+            int to = random.nextInt(list.size());
+            list.add(to, list.remove(from));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static <L extends List<Integer>> L fill(L list, int size) {
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+}
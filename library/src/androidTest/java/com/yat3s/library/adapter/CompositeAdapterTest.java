@@ -0,0 +1,148 @@
+package com.yat3s.library.adapter;
+
+import android.support.v7.widget.RecyclerView;
+import android.test.AndroidTestCase;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Position mapping and stable ids of {@link CompositeAdapter}, it needs the real adapter
+ * observable so it runs on device.
+ */
+
+public class CompositeAdapterTest extends AndroidTestCase {
+
+    public void testEmptySegmentsAreNeverResolved() throws Exception {
+        TestAdapter leading = new TestAdapter(1, false);
+        TestAdapter first = new TestAdapter(2, false, 10, 11, 12);
+        TestAdapter middle = new TestAdapter(3, false);
+        TestAdapter second = new TestAdapter(4, false, 20, 21);
+        TestAdapter trailing = new TestAdapter(5, false);
+        CompositeAdapter composite = new CompositeAdapter();
+        composite.addAdapter(leading);
+        composite.addAdapter(first);
+        composite.addAdapter(middle);
+        composite.addAdapter(second);
+        composite.addAdapter(trailing);
+
+        assertEquals(5, composite.getItemCount());
+        for (int position = 0; position < 5; position++) {
+            assertEquals(RecyclerView.NO_POSITION, composite.getLocalPosition(leading, position));
+            assertEquals(RecyclerView.NO_POSITION, composite.getLocalPosition(middle, position));
+            assertEquals(RecyclerView.NO_POSITION, composite.getLocalPosition(trailing,
+                    position));
+        }
+        for (int position = 0; position < 3; position++) {
+            assertEquals(position, composite.getLocalPosition(first, position));
+            assertEquals(RecyclerView.NO_POSITION, composite.getLocalPosition(second, position));
+        }
+        assertEquals(0, composite.getLocalPosition(second, 3));
+        assertEquals(1, composite.getLocalPosition(second, 4));
+        assertEquals(3, composite.getGlobalPosition(second, 0));
+        assertEquals(3, composite.getGlobalPosition(middle, 0));
+
+        // Positions resolve to the adapter which holds them, not to an empty one before it
+        int firstType = composite.getItemViewType(0);
+        assertEquals(firstType, composite.getItemViewType(2));
+        int secondType = composite.getItemViewType(3);
+        assertEquals(secondType, composite.getItemViewType(4));
+        assertFalse(firstType == secondType);
+
+        // A segment which becomes empty is skipped as well
+        first.remove(0, 3);
+        assertEquals(2, composite.getItemCount());
+        assertEquals(RecyclerView.NO_POSITION, composite.getLocalPosition(first, 0));
+        assertEquals(0, composite.getLocalPosition(second, 0));
+        assertEquals(secondType, composite.getItemViewType(0));
+    }
+
+    public void testEqualIdsOfTwoAdaptersDoNotCollide() throws Exception {
+        TestAdapter first = new TestAdapter(1, true, 1, 2, 3);
+        TestAdapter second = new TestAdapter(1, true, 1, 2);
+        CompositeAdapter composite = new CompositeAdapter();
+        composite.setHasStableIds(true);
+        composite.addAdapter(first);
+        composite.addAdapter(second);
+
+        List<Long> ids = getItemIds(composite);
+        assertEquals(5, new HashSet<>(ids).size());
+        assertFalse(ids.contains(RecyclerView.NO_ID));
+
+        // Ids follow the items, not the positions
+        first.insert(0, 7);
+        List<Long> movedIds = getItemIds(composite);
+        assertEquals(ids, movedIds.subList(1, 6));
+        assertFalse(ids.contains(movedIds.get(0)));
+    }
+
+    public void testAdaptersWithoutStableIdsGetDistinctIds() throws Exception {
+        CompositeAdapter composite = new CompositeAdapter();
+        composite.setHasStableIds(true);
+        composite.addAdapter(new TestAdapter(1, false, 0, 0, 0));
+        composite.addAdapter(new TestAdapter(1, false, 0, 0));
+
+        Set<Long> ids = new HashSet<>(getItemIds(composite));
+        assertEquals(5, ids.size());
+        assertFalse(ids.contains(RecyclerView.NO_ID));
+    }
+
+    private static List<Long> getItemIds(CompositeAdapter composite) {
+        List<Long> ids = new ArrayList<>();
+        for (int position = 0; position < composite.getItemCount(); position++) {
+            ids.add(composite.getItemId(position));
+        }
+        return ids;
+    }
+
+    private static class TestAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+        private final int mViewType;
+        private final List<Long> mIds = new ArrayList<>();
+
+        TestAdapter(int viewType, boolean hasStableIds, long... ids) {
+            mViewType = viewType;
+            for (long id : ids) {
+                mIds.add(id);
+            }
+            setHasStableIds(hasStableIds);
+        }
+
+        void insert(int position, long id) {
+            mIds.add(position, id);
+            notifyItemInserted(position);
+        }
+
+        void remove(int position, int count) {
+            mIds.subList(position, position + count).clear();
+            notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            // Do nothing
+        }
+
+        @Override
+        public int getItemCount() {
+            return mIds.size();
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return mViewType;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return mIds.get(position);
+        }
+    }
+}
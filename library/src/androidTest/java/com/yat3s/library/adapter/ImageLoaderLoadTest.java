@@ -0,0 +1,177 @@
+package com.yat3s.library.adapter;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.test.AndroidTestCase;
+import android.widget.ImageView;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads local files with {@link ImageLoader}, requests are made on main thread like an
+ * adapter does and the test thread waits for the image views.
+ */
+
+public class ImageLoaderLoadTest extends AndroidTestCase {
+    private static final long TIMEOUT_MILLIS = 5000;
+    // Long enough for a cancelled decode to finish and post its result
+    private static final long SETTLE_MILLIS = 500;
+    private static final int IMAGE_VIEW_ID = 0x7f0a0000;
+
+    private Handler mMainHandler;
+    private ImageLoader mImageLoader;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mMainHandler = new Handler(Looper.getMainLooper());
+        mImageLoader = new ImageLoader(getContext(), 4 * 1024 * 1024);
+    }
+
+    public void testFileIsDecodedOnBackgroundAndDownsampled() throws Exception {
+        final Uri uri = writeImage("load_red.png", 400, Color.RED);
+        final ImageView imageView = new ImageView(getContext());
+        final Object[] result = new Object[2];
+        runOnMain(new Runnable() {
+            @Override
+            public void run() {
+                result[0] = mImageLoader.load(uri, 100, imageView);
+                result[1] = imageView.getDrawable();
+            }
+        });
+        assertNotNull("Request expected for a bitmap not in cache", result[0]);
+        assertNull("Bitmap must not be decoded on main thread", result[1]);
+
+        Bitmap bitmap = awaitBitmap(imageView);
+        assertEquals(100, bitmap.getWidth());
+        assertEquals(100, bitmap.getHeight());
+        assertEquals(Color.RED, bitmap.getPixel(0, 0));
+    }
+
+    public void testSameUriAndSizeHitMemoryCache() throws Exception {
+        final Uri uri = writeImage("cache_red.png", 200, Color.RED);
+        final ImageView firstView = new ImageView(getContext());
+        runOnMain(new Runnable() {
+            @Override
+            public void run() {
+                mImageLoader.load(uri, 100, firstView);
+            }
+        });
+        Bitmap bitmap = awaitBitmap(firstView);
+
+        final ImageView secondView = new ImageView(getContext());
+        final ImageView otherSizeView = new ImageView(getContext());
+        final Object[] result = new Object[3];
+        runOnMain(new Runnable() {
+            @Override
+            public void run() {
+                result[0] = mImageLoader.load(uri, 100, secondView);
+                result[1] = getBitmap(secondView);
+                result[2] = mImageLoader.load(uri, 50, otherSizeView);
+            }
+        });
+        assertNull("Cache hit must not make a request", result[0]);
+        assertSame(bitmap, result[1]);
+        assertNotNull("Another target size is another key", result[2]);
+    }
+
+    public void testCancelledRequestLeavesImageViewEmpty() throws Exception {
+        final Uri uri = writeImage("cancel_red.png", 200, Color.RED);
+        final ImageView imageView = new ImageView(getContext());
+        runOnMain(new Runnable() {
+            @Override
+            public void run() {
+                mImageLoader.load(uri, 100, imageView).cancel();
+            }
+        });
+        SystemClock.sleep(SETTLE_MILLIS);
+        assertNull(readBitmap(imageView));
+    }
+
+    public void testRebindingHolderCancelsPreviousRequest() throws Exception {
+        final Uri redUri = writeImage("rebind_red.png", 200, Color.RED);
+        final Uri blueUri = writeImage("rebind_blue.png", 200, Color.BLUE);
+        ImageLoader.getInstance(getContext()).clearMemory();
+        ImageView imageView = new ImageView(getContext());
+        imageView.setId(IMAGE_VIEW_ID);
+        final BaseViewHolder holder = new BaseViewHolder(imageView, getContext());
+        runOnMain(new Runnable() {
+            @Override
+            public void run() {
+                holder.setImageUri(IMAGE_VIEW_ID, redUri, 100);
+                holder.setImageUri(IMAGE_VIEW_ID, blueUri, 100);
+            }
+        });
+        assertEquals(Color.BLUE, awaitBitmap(imageView).getPixel(0, 0));
+        SystemClock.sleep(SETTLE_MILLIS);
+        assertEquals(Color.BLUE, readBitmap(imageView).getPixel(0, 0));
+    }
+
+    private Uri writeImage(String name, int size, int color) throws IOException {
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(color);
+        File file = new File(getContext().getCacheDir(), name);
+        FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, outputStream);
+        } finally {
+            outputStream.close();
+        }
+        return Uri.fromFile(file);
+    }
+
+    private Bitmap awaitBitmap(ImageView imageView) throws InterruptedException {
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT_MILLIS;
+        while (SystemClock.uptimeMillis() < deadline) {
+            Bitmap bitmap = readBitmap(imageView);
+            if (null != bitmap) {
+                return bitmap;
+            }
+            SystemClock.sleep(20);
+        }
+        fail("Image was not loaded in " + TIMEOUT_MILLIS + "ms");
+        return null;
+    }
+
+    private Bitmap readBitmap(final ImageView imageView) throws InterruptedException {
+        final Bitmap[] bitmap = new Bitmap[1];
+        runOnMain(new Runnable() {
+            @Override
+            public void run() {
+                bitmap[0] = getBitmap(imageView);
+            }
+        });
+        return bitmap[0];
+    }
+
+    private static Bitmap getBitmap(ImageView imageView) {
+        Drawable drawable = imageView.getDrawable();
+        return drawable instanceof BitmapDrawable ? ((BitmapDrawable) drawable).getBitmap() :
+                null;
+    }
+
+    private void runOnMain(final Runnable runnable) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runnable.run();
+                } finally {
+                    latch.countDown();
+                }
+            }
+        });
+        assertTrue(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+}
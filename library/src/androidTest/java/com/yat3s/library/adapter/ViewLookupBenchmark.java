@@ -0,0 +1,94 @@
+package com.yat3s.library.adapter;
+
+import android.test.AndroidTestCase;
+import android.util.Log;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+/**
+ * Compares holder creation and {@link BaseViewHolder#getView(int)} between the SparseArray
+ * path and the view id index path, results are printed to logcat.
+ */
+
+public class ViewLookupBenchmark extends AndroidTestCase {
+    private static final String TAG = "ViewLookupBenchmark";
+    private static final int ID_COUNT = 30;
+    private static final int HOLDER_COUNT = 300;
+    private static final int FIRST_ID = 0x7f0a0000;
+    private static final int FAKE_LAYOUT_ID = 0x7f040000;
+
+    public void testIndexedLookupReturnsSameViews() throws Exception {
+        View itemView = createItemView();
+        BaseViewHolder sparseHolder = new BaseViewHolder(itemView, getContext());
+        BaseViewHolder indexedHolder = new BaseViewHolder(itemView, getContext(), ViewIdIndex
+                .obtain(FAKE_LAYOUT_ID, itemView));
+        for (int i = 0; i < ID_COUNT; i++) {
+            assertSame(sparseHolder.getView(FIRST_ID + i), indexedHolder.getView(FIRST_ID + i));
+        }
+        assertNull(indexedHolder.getView(FIRST_ID + ID_COUNT));
+    }
+
+    public void testBenchmarkBindLookups() throws Exception {
+        View[] itemViews = new View[HOLDER_COUNT];
+        for (int i = 0; i < HOLDER_COUNT; i++) {
+            itemViews[i] = createItemView();
+        }
+        ViewIdIndex index = ViewIdIndex.obtain(FAKE_LAYOUT_ID, itemViews[0]);
+        // Warm up both paths
+        runSparse(itemViews);
+        runIndexed(itemViews, index);
+
+        long sparseNanos = runSparse(itemViews);
+        long indexedNanos = runIndexed(itemViews, index);
+        Log.d(TAG, "SparseArray: " + sparseNanos / 1000 + "us, index: " + indexedNanos / 1000 +
+                "us for " + HOLDER_COUNT + " holders x " + ID_COUNT + " ids x 2 binds");
+    }
+
+    private long runSparse(View[] itemViews) {
+        long start = System.nanoTime();
+        for (View itemView : itemViews) {
+            lookupAll(new BaseViewHolder(itemView, getContext()));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long runIndexed(View[] itemViews, ViewIdIndex index) {
+        long start = System.nanoTime();
+        for (View itemView : itemViews) {
+            lookupAll(new BaseViewHolder(itemView, getContext(), index));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void lookupAll(BaseViewHolder holder) {
+        // First bind walks the tree on the SparseArray path, second bind hits its cache
+        for (int bind = 0; bind < 2; bind++) {
+            for (int i = 0; i < ID_COUNT; i++) {
+                holder.getView(FIRST_ID + i);
+            }
+        }
+    }
+
+    /**
+     * A row of nested containers, like a real item layout.
+     */
+    private View createItemView() {
+        LinearLayout root = new LinearLayout(getContext());
+        LinearLayout column = null;
+        for (int i = 0; i < ID_COUNT; i++) {
+            if (i % 5 == 0) {
+                column = new LinearLayout(getContext());
+                column.setOrientation(LinearLayout.VERTICAL);
+                root.addView(column);
+            }
+            FrameLayout container = new FrameLayout(getContext());
+            TextView textView = new TextView(getContext());
+            textView.setId(FIRST_ID + i);
+            container.addView(textView);
+            column.addView(container);
+        }
+        return root;
+    }
+}
@@ -1,18 +1,26 @@
 package com.yat3s.library.adapter;
 
 import android.animation.Animator;
-import android.animation.AnimatorSet;
-import android.animation.ObjectAnimator;
+import android.os.Build;
 import android.view.View;
+import android.view.ViewPropertyAnimator;
+import android.view.animation.AccelerateDecelerateInterpolator;
 import android.view.animation.Interpolator;
 
 /**
  * Created by Yat3s on 6/16/16.
  * Email: hawkoyates@gmail.com
  * GitHub: https://github.com/yat3s
+ * <p>
+ * Animations run on the view's own {@link ViewPropertyAnimator} instead of a new set of
+ * object animators per row. Starting one still allocates the value animator behind it, and
+ * the layer runnables when it runs with a hardware layer.
  */
 
 public class AnimationUtil {
+    static final Interpolator DEFAULT_INTERPOLATOR = new
+            AccelerateDecelerateInterpolator();
+
     private AnimationType mAnimationType = AnimationType.ALPHA;
     private Animator mCustomAnimator;
     private View mTargetView;
@@ -53,38 +61,133 @@ public class AnimationUtil {
         } else if (null == mTargetView) {
             throw new IllegalArgumentException("You must set a target view!");
         } else {
-            startAnimation(mAnimationType);
+            animate(mTargetView, mAnimationType, mDuration, mInterpolator);
+        }
+    }
+
+    /**
+     * Starts the animation on target view. Running animations are not cancelled, call
+     * {@link #reset(View)} first to cancel the one you started.
+     *
+     * @param interpolator null means accelerate decelerate interpolator
+     */
+    public static void animate(View targetView, AnimationType animationType, long duration,
+                               Interpolator interpolator) {
+        animate(targetView, animationType, duration, 0, interpolator);
+    }
+
+    /**
+     * @param startDelay delay in ms before the animation starts, the view keeps its start
+     *                   state until then
+     */
+    public static void animate(View targetView, AnimationType animationType, long duration,
+                               long startDelay, Interpolator interpolator) {
+        ViewPropertyAnimator animator = targetView.animate();
+        switch (animationType) {
+            case ALPHA:
+                targetView.setAlpha(0.7f);
+                animator.alpha(1f);
+                break;
+            case SCALE:
+                targetView.setScaleX(0.6f);
+                targetView.setScaleY(0.6f);
+                animator.scaleX(1f).scaleY(1f);
+                break;
+            case SLIDE_FROM_BOTTOM:
+                targetView.setTranslationY(targetView.getMeasuredHeight());
+                animator.translationY(0);
+                break;
+            case SLIDE_FROM_LEFT:
+                targetView.setTranslationX(-targetView.getRootView().getWidth());
+                animator.translationX(0);
+                break;
+            case SLIDE_FROM_RIGHT:
+                targetView.setTranslationX(targetView.getRootView().getWidth());
+                animator.translationX(0);
+                break;
         }
+        animator.setDuration(duration)
+                .setStartDelay(startDelay)
+                .setInterpolator(null != interpolator ? interpolator : DEFAULT_INTERPOLATOR)
+                .setListener(null);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            animator.withLayer();
+        }
+        animator.start();
+        // Values are copied into the animation when it starts, put back the defaults so the
+        // item animator sharing the view's animator does not inherit the delay
+        animator.setStartDelay(0).setInterpolator(null);
+    }
+
+    /**
+     * Cancels the running animation and puts the view back to its rest state, call it before
+     * the view is reused.
+     */
+    public static void reset(View targetView) {
+        targetView.animate().cancel();
+        clearProperties(targetView);
     }
 
-    private void startAnimation(AnimationType animationType) {
-        AnimatorSet animatorSet = new AnimatorSet();
+    /**
+     * Sets the state a view appears from or disappears to with the animation type, it is
+     * fully invisible unlike the start state of bind animations.
+     */
+    static void setHiddenState(View targetView, AnimationType animationType) {
         switch (animationType) {
             case ALPHA:
-                animatorSet.play(ObjectAnimator.ofFloat(mTargetView, "alpha", 0.7f, 1f));
+                targetView.setAlpha(0f);
                 break;
             case SCALE:
-                animatorSet.playTogether(ObjectAnimator.ofFloat(mTargetView, "scaleX", 0.6f, 1f)
-                        , ObjectAnimator.ofFloat(mTargetView, "scaleY", 0.6f, 1f));
+                targetView.setAlpha(0f);
+                targetView.setScaleX(0.6f);
+                targetView.setScaleY(0.6f);
                 break;
             case SLIDE_FROM_BOTTOM:
-                animatorSet.play(ObjectAnimator.ofFloat(mTargetView, "translationY", mTargetView
-                        .getMeasuredHeight(), 0));
+                targetView.setAlpha(0f);
+                targetView.setTranslationY(targetView.getHeight());
                 break;
             case SLIDE_FROM_LEFT:
-                animatorSet.play(ObjectAnimator.ofFloat(mTargetView, "translationX", -mTargetView
-                        .getRootView().getWidth(), 0));
+                targetView.setTranslationX(-targetView.getRootView().getWidth());
                 break;
             case SLIDE_FROM_RIGHT:
-                animatorSet.play(ObjectAnimator.ofFloat(mTargetView, "translationX", mTargetView
-                        .getRootView().getWidth(), 0));
+                targetView.setTranslationX(targetView.getRootView().getWidth());
                 break;
         }
+    }
 
-        if (null != mInterpolator) {
-            animatorSet.setInterpolator(mInterpolator);
+    /**
+     * Adds the properties of the hidden state, see {@link #setHiddenState(View, AnimationType)},
+     * to the animator.
+     */
+    static void animateToHiddenState(ViewPropertyAnimator animator, View targetView,
+                                     AnimationType animationType) {
+        switch (animationType) {
+            case ALPHA:
+                animator.alpha(0f);
+                break;
+            case SCALE:
+                animator.alpha(0f).scaleX(0.6f).scaleY(0.6f);
+                break;
+            case SLIDE_FROM_BOTTOM:
+                animator.alpha(0f).translationY(targetView.getHeight());
+                break;
+            case SLIDE_FROM_LEFT:
+                animator.translationX(-targetView.getRootView().getWidth());
+                break;
+            case SLIDE_FROM_RIGHT:
+                animator.translationX(targetView.getRootView().getWidth());
+                break;
         }
-        animatorSet.setDuration(mDuration);
-        animatorSet.start();
+    }
+
+    /**
+     * Puts the animated properties back to rest without touching the animator.
+     */
+    static void clearProperties(View targetView) {
+        targetView.setAlpha(1f);
+        targetView.setScaleX(1f);
+        targetView.setScaleY(1f);
+        targetView.setTranslationX(0);
+        targetView.setTranslationY(0);
     }
 }
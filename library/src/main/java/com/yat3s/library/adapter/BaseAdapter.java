@@ -5,18 +5,28 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Rect;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.SparseIntArray;
+import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.view.Choreographer;
+import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.animation.Interpolator;
-import android.view.animation.TranslateAnimation;
-import android.widget.RelativeLayout;
+import android.widget.FrameLayout;
+import android.widget.ProgressBar;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * Created by Yat3s on 6/13/16.
@@ -27,10 +37,17 @@ import java.util.Map;
 public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder> {
     private static final String TAG = "BaseAdapter";
 
+    /**
+     * Keys below it are reserved for ids of rows which are not items, see
+     * {@link #getItemId(int)}.
+     */
+    public static final long MIN_KEY = Long.MIN_VALUE + 0x100000000L;
+
     private static class VIEW_TYPE {
         static final int HEADER = 0x0010;
         static final int EMPTY_VIEW = 0x0011;
         static final int LOADING_VIEW = 0x0012;
+        static final int LOAD_MORE_VIEW = 0x0013;
     }
 
     /**
@@ -39,6 +56,7 @@ public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder
     private List<T> mData;
     private Context mContext;
     private LayoutInflater mInflater;
+    private ResourceCache mResourceCache;
 
     /**
      * Listener
@@ -50,10 +68,20 @@ public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder
     /**
      * View type
      */
-    private Map<Integer, Integer> layoutIdMap, viewTypeMap;
-    private int mCurrentViewTypeValue = 0x0107;
+    private static final int VIEW_TYPE_UNKNOWN = 0;
+    // View type of each data position, it is invalidated by data changes
+    private int[] mItemViewTypes = new int[0];
     private View mEmptyView, mLoadingView;
     private boolean hasAddData, showLoadingViewIgnoreHeader = true;
+    private SharedViewPool mSharedViewPool;
+    private ViewPreInflater mViewPreInflater;
+    // Prewarm requests made before attached, layout id to count
+    private SparseIntArray mPendingPrewarms;
+    private RecyclerView mAttachedRecyclerView;
+    // Set when this adapter is a segment of a composite adapter
+    CompositeAdapter mParentAdapter;
+    // Observers this adapter keeps itself, see setKeyExtractor
+    private final List<RecyclerView.AdapterDataObserver> mInternalObservers = new ArrayList<>();
 
     /**
      * Animation
@@ -64,15 +92,237 @@ public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder
     private Interpolator mItemAnimationInterpolator;
     private CustomAnimator mCustomAnimator;
     private int mLastItemPosition = -1;
+    private ItemAnimationScheduler mAnimationScheduler;
+    private final Runnable mEndCascadeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mAnimationScheduler.endCascade();
+        }
+    };
+    private final RecyclerView.OnScrollListener mAnimationScrollListener = new RecyclerView
+            .OnScrollListener() {
+        @Override
+        public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+            mAnimationScheduler.onScrollStateChanged(newState == RecyclerView.SCROLL_STATE_IDLE);
+        }
+
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            mAnimationScheduler.onScrolled(dx, dy, SystemClock.uptimeMillis());
+        }
+    };
 
     /**
      * Parallax
      */
-    private CustomRelativeWrapper mHeaderView;
+    private HeaderWrapper mHeaderView;
     private float mScrollMultiplier = 0.5f;
     private OnParallaxScrollListener mParallaxScrollListener;
     private RecyclerView mRecyclerView;
     private boolean mShouldClipView = true;
+    // Scrolled distance of the header, tracked from scroll deltas
+    private int mHeaderScrollOffset;
+    private float mLastParallaxPercentage = -1;
+    private final RecyclerView.OnScrollListener mParallaxScrollHandler = new RecyclerView
+            .OnScrollListener() {
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            if (mHeaderView == null) {
+                return;
+            }
+            RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+            if (layoutManager.getChildAt(0) == mHeaderView) {
+                // Header is on screen, its position corrects any drift of the deltas
+                mHeaderScrollOffset = recyclerView.getPaddingTop() - layoutManager
+                        .getDecoratedTop(mHeaderView);
+            } else {
+                mHeaderScrollOffset = Math.max(mHeaderScrollOffset + dy, mHeaderView
+                        .getHeight());
+            }
+            translateHeader(Math.min(mHeaderScrollOffset, mHeaderView.getHeight()));
+        }
+    };
+
+    /**
+     * Diff
+     */
+    private static Executor sDiffExecutor;
+    private DiffCallback<T> mDiffCallback;
+    private Executor mDiffExecutor;
+    private Handler mMainHandler;
+    private int mMaxScheduledGeneration;
+    // Bumped by each notified edit of the data, a diff of an older version is calculated again
+    private int mDataVersion;
+    // True while an item edit is notified, the data then matches the notification
+    private boolean isNotifyingEdit;
+    private final ListUpdateCallback mAdapterUpdateCallback = new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(position + getHeaderViewCount(), count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(position + getHeaderViewCount(), count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(fromPosition + getHeaderViewCount(), toPosition +
+                    getHeaderViewCount());
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            notifyItemRangeChanged(position + getHeaderViewCount(), count, payload);
+        }
+    };
+
+    /**
+     * Height index
+     */
+    private ItemHeightIndex mHeightIndex;
+    private final View.OnLayoutChangeListener mHeightRecorder = new View.OnLayoutChangeListener() {
+        @Override
+        public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft,
+                                   int oldTop, int oldRight, int oldBottom) {
+            if (null == mHeightIndex || null == mAttachedRecyclerView || v.getParent() !=
+                    mAttachedRecyclerView) {
+                return;
+            }
+            RecyclerView.ViewHolder holder = mAttachedRecyclerView.getChildViewHolder(v);
+            int position = getAdapterPosition(holder);
+            if (position == RecyclerView.NO_POSITION || position >= mHeightIndex.size()) {
+                return;
+            }
+            mHeightIndex.record(position, holder.getItemViewType(), getDecoratedHeight(v));
+        }
+    };
+    // Checks the size once the current dispatch is done, its steps only match at the end
+    private boolean isHeightSizeCheckPosted;
+    private final Runnable mHeightSizeCheck = new Runnable() {
+        @Override
+        public void run() {
+            isHeightSizeCheckPosted = false;
+            if (null != mHeightIndex && mHeightIndex.size() != getItemCount()) {
+                mHeightIndex.reset(getItemCount());
+            }
+        }
+    };
+
+    /**
+     * Batch
+     */
+    private UpdateBatch mUpdateBatch;
+    private int mBatchDepth, mBatchStartSize;
+    private boolean mBatchInvalidated;
+
+    /**
+     * Change queue
+     */
+    private final ChangeQueue<T> mChangeQueue = new ChangeQueue<>();
+    private long mChangeFrameBudgetNanos = 4000000;
+    // Choreographer.FrameCallback on API 16+, kept as Object so API 15 never loads it
+    private Object mDrainFrameCallback;
+    private final Runnable mDrainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            drainChangeQueue();
+        }
+    };
+    private final Runnable mScheduleDrainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            scheduleDrain();
+        }
+    };
+    private final ChangeQueue.Target<T> mChangeQueueTarget = new ChangeQueue.Target<T>() {
+        @Override
+        public int size() {
+            return mData.size();
+        }
+
+        @Override
+        public void insert(int index, T item) {
+            if (canApply("insert", index, mData.size())) {
+                insertItem(index, item);
+            }
+        }
+
+        @Override
+        public void update(int index, T item) {
+            if (canApply("update", index, mData.size() - 1)) {
+                setItem(index, item);
+            }
+        }
+
+        @Override
+        public void remove(int index) {
+            if (canApply("removal", index, mData.size() - 1)) {
+                removeItem(index);
+            }
+        }
+
+        private boolean canApply(String change, int index, int maxIndex) {
+            if (mData instanceof PagedList) {
+                // A paged list was set after the change was posted
+                Log.w(TAG, "Dropped posted " + change + " at " + index + ", data is a paged list");
+                return false;
+            }
+            if (index < 0 || index > maxIndex) {
+                Log.w(TAG, "Dropped posted " + change + " at " + index + ", data size " + mData
+                        .size());
+                return false;
+            }
+            return true;
+        }
+    };
+
+    /**
+     * Stable id
+     */
+    private KeyExtractor<T> mKeyExtractor;
+    private KeyIndex mKeyIndex;
+    private final KeyIndex.KeySource mKeySource = new KeyIndex.KeySource() {
+        @Override
+        public int size() {
+            return mData.size();
+        }
+
+        @Override
+        public boolean hasKey(int position) {
+            return null != peekItem(position);
+        }
+
+        @Override
+        public long getKey(int position) {
+            return mKeyExtractor.getKey(peekItem(position));
+        }
+    };
+
+    /**
+     * Load more
+     */
+    private static final int LOAD_MORE_IDLE = 0;
+    private static final int LOAD_MORE_LOADING = 1;
+    private static final int LOAD_MORE_ERROR = 2;
+    private static final int LOAD_MORE_END = 3;
+    // Rebinds the footer in place, a payload keeps the item animator from asking for a new
+    // holder of the single footer view
+    private static final Object LOAD_MORE_PAYLOAD = new Object();
+    private OnLoadMoreListener mOnLoadMoreListener;
+    private int mLoadMoreState = LOAD_MORE_IDLE;
+    private int mLoadMorePrefetchDistance = 5;
+    private FrameLayout mLoadMoreFooter;
+    private View mLoadMoreLoadingView, mLoadMoreErrorView, mLoadMoreEndView;
+    private final Runnable mLoadMoreRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mLoadMoreState == LOAD_MORE_LOADING && null != mOnLoadMoreListener) {
+                mOnLoadMoreListener.onLoadMore();
+            }
+        }
+    };
 
     public BaseAdapter(Context context) {
         this(context, null);
@@ -80,14 +330,28 @@ public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder
 
     public BaseAdapter(Context context, List<T> data) {
         mData = null == data ? new ArrayList<T>() : data;
-        layoutIdMap = new HashMap<>();
-        viewTypeMap = new HashMap<>();
         mContext = context;
         mInflater = LayoutInflater.from(context);
+        mResourceCache = new ResourceCache(context);
+        mMainHandler = new Handler(Looper.getMainLooper());
+        // Default fling threshold is a quarter of the fastest fling
+        mAnimationScheduler = new ItemAnimationScheduler(ViewConfiguration.get(context)
+                .getScaledMaximumFlingVelocity() / 4);
+        registerInternalObserver(new ViewTypeCacheInvalidator());
     }
 
     @Override
     public BaseViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        BaseViewHolder baseViewHolder = createBaseViewHolder(parent, viewType);
+        baseViewHolder.mResourceCache = mResourceCache;
+        baseViewHolder.mViewType = viewType;
+        // Header views are wrapped once but may get more holders
+        baseViewHolder.itemView.removeOnLayoutChangeListener(mHeightRecorder);
+        baseViewHolder.itemView.addOnLayoutChangeListener(mHeightRecorder);
+        return baseViewHolder;
+    }
+
+    private BaseViewHolder createBaseViewHolder(ViewGroup parent, int viewType) {
         BaseViewHolder baseViewHolder;
         switch (viewType) {
             case VIEW_TYPE.HEADER:
@@ -100,11 +364,26 @@ public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder
             case VIEW_TYPE.LOADING_VIEW:
                 baseViewHolder = new BaseViewHolder(mLoadingView, mContext);
                 break;
+            case VIEW_TYPE.LOAD_MORE_VIEW:
+                baseViewHolder = new BaseViewHolder(getLoadMoreFooter(), mContext);
+                break;
             default:
-                baseViewHolder = new BaseViewHolder(mInflater.inflate(layoutIdMap.get(viewType),
-                        parent, false), mContext);
+                int layoutId = ViewTypeRegistry.getLayoutId(viewType);
+                View itemView = null != mViewPreInflater ? mViewPreInflater.obtain(viewType) :
+                        null;
+                if (null == itemView) {
+                    itemView = mInflater.inflate(layoutId, parent, false);
+                }
+                baseViewHolder = new BaseViewHolder(itemView, mContext, ViewIdIndex.obtain
+                        (layoutId, itemView));
+                baseViewHolder.mOwnerAdapter = this;
                 bindClickListenerToItemView(baseViewHolder);
-                break;
+                return baseViewHolder;
+        }
+        if (null != mSharedViewPool) {
+            // Header, empty view, loading view and footer belong to this adapter, keep them out
+            // of pool
+            baseViewHolder.setIsRecyclable(false);
         }
         return baseViewHolder;
     }
@@ -112,11 +391,59 @@ public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder
     @Override
     public void onAttachedToRecyclerView(RecyclerView recyclerView) {
         super.onAttachedToRecyclerView(recyclerView);
+        mAttachedRecyclerView = recyclerView;
+        recyclerView.addOnScrollListener(mAnimationScrollListener);
+        // View types inside a composite adapter are its own, they do not match the pool
+        if (null != mSharedViewPool && null == mParentAdapter) {
+            recyclerView.setRecycledViewPool(mSharedViewPool);
+        }
+        if (null != mPendingPrewarms) {
+            for (int i = 0; i < mPendingPrewarms.size(); i++) {
+                prewarm(mPendingPrewarms.keyAt(i), mPendingPrewarms.valueAt(i));
+            }
+            mPendingPrewarms = null;
+        }
         if (null != mLoadingView) {
             notifyItemChanged(showLoadingViewIgnoreHeader ? 0 : getHeaderViewCount());
         }
     }
 
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        mAttachedRecyclerView = null;
+        recyclerView.removeOnScrollListener(mAnimationScrollListener);
+        mMainHandler.removeCallbacks(mEndCascadeRunnable);
+        mAnimationScheduler.endCascade();
+        if (null != mViewPreInflater) {
+            // Cached views hold the context, and were made for the detached recycler view
+            mViewPreInflater.clear();
+        }
+    }
+
+    @Override
+    public void onViewRecycled(BaseViewHolder holder) {
+        super.onViewRecycled(holder);
+        holder.cancelImageRequests();
+        if (!isPseudoViewType(holder.mViewType)) {
+            holder.resetItemAnimation();
+        }
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(BaseViewHolder holder) {
+        super.onViewDetachedFromWindow(holder);
+        // Rows scrolled out in the middle of animation must not come back half faded
+        if (!isPseudoViewType(holder.mViewType)) {
+            holder.resetItemAnimation();
+        }
+    }
+
+    static boolean isPseudoViewType(int viewType) {
+        return viewType == VIEW_TYPE.HEADER || viewType == VIEW_TYPE.EMPTY_VIEW || viewType ==
+                VIEW_TYPE.LOADING_VIEW || viewType == VIEW_TYPE.LOAD_MORE_VIEW;
+    }
+
     @Override
     public int getItemViewType(int position) {
         if (position < getHeaderViewCount()) {
@@ -128,21 +455,38 @@ public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder
             return VIEW_TYPE.LOADING_VIEW;
         } else if (mData.size() == 0 && null != mEmptyView) {
             return VIEW_TYPE.EMPTY_VIEW;
+        } else if (position == mData.size() + getHeaderViewCount()) {
+            return VIEW_TYPE.LOAD_MORE_VIEW;
         } else {
             int currentPosition = position - getHeaderViewCount();
-            int currentLayoutId = getItemViewLayoutId(currentPosition, mData.get(currentPosition));
-            if (!viewTypeMap.containsKey(currentLayoutId)) {
-                mCurrentViewTypeValue++;
-                viewTypeMap.put(currentLayoutId, mCurrentViewTypeValue);
-                layoutIdMap.put(viewTypeMap.get(currentLayoutId), currentLayoutId);
+            if (currentPosition >= mItemViewTypes.length) {
+                mItemViewTypes = Arrays.copyOf(mItemViewTypes, Math.max(mData.size(),
+                        currentPosition + 1));
             }
-            return viewTypeMap.get(currentLayoutId);
+            int viewType = mItemViewTypes[currentPosition];
+            if (viewType == VIEW_TYPE_UNKNOWN) {
+                viewType = ViewTypeRegistry.getViewType(getItemViewLayoutId(currentPosition, mData
+                        .get(currentPosition)));
+                mItemViewTypes[currentPosition] = viewType;
+                if (null != mHeightIndex && position < mHeightIndex.size()) {
+                    mHeightIndex.setViewType(position, viewType);
+                }
+            }
+            return viewType;
+        }
+    }
+
+    private void invalidateItemViewTypes(int position, int count) {
+        int start = Math.max(0, position);
+        int end = Math.min(mItemViewTypes.length, position + count);
+        if (start < end) {
+            Arrays.fill(mItemViewTypes, start, end, VIEW_TYPE_UNKNOWN);
         }
     }
 
     @Override
     public void onBindViewHolder(BaseViewHolder holder, int position) {
-        switch (getItemViewType(position)) {
+        switch (holder.mViewType) {
             case VIEW_TYPE.HEADER:
                 // Do nothing
                 break;
@@ -152,28 +496,82 @@ public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder
             case VIEW_TYPE.LOADING_VIEW:
                 // Do nothing
                 break;
+            case VIEW_TYPE.LOAD_MORE_VIEW:
+                bindLoadMoreFooter();
+                break;
             default:
+                if (holder.mOwnerAdapter != this) {
+                    adoptViewHolder(holder);
+                }
                 bindDataToItemView(holder, getItem(position - getHeaderViewCount()), position -
                         getHeaderViewCount());
                 bindItemAnimationToItemView(holder);
+                if (position - getHeaderViewCount() >= mData.size() - mLoadMorePrefetchDistance) {
+                    requestLoadMore();
+                }
+                break;
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(BaseViewHolder holder, int position, List<Object> payloads) {
+        switch (holder.mViewType) {
+            case VIEW_TYPE.HEADER:
+            case VIEW_TYPE.EMPTY_VIEW:
+            case VIEW_TYPE.LOADING_VIEW:
+                // Do nothing
+                break;
+            case VIEW_TYPE.LOAD_MORE_VIEW:
+                bindLoadMoreFooter();
+                break;
+            default:
+                if (payloads.isEmpty() || holder.mOwnerAdapter != this) {
+                    onBindViewHolder(holder, position);
+                } else {
+                    bindPartial(holder, getItem(position - getHeaderViewCount()), position -
+                            getHeaderViewCount(), payloads);
+                }
                 break;
         }
     }
 
     protected final void bindItemAnimationToItemView(final BaseViewHolder holder) {
-        int currentPosition = holder.getAdapterPosition();
-        if (null != mCustomAnimator) {
-            mCustomAnimator.getAnimator(holder.itemView).setDuration(mAnimationDuration).start();
-        } else if (null != mAnimationType) {
-            if (showItemAnimationEveryTime || currentPosition > mLastItemPosition) {
-                new AnimationUtil()
-                        .setAnimationType(mAnimationType)
-                        .setTargetView(holder.itemView)
-                        .setDuration(mAnimationDuration)
-                        .setInterpolator(mItemAnimationInterpolator)
-                        .start();
-                mLastItemPosition = currentPosition;
+        if (!holder.isRecyclable()) {
+            // Item animator is animating the holder on the same view properties
+            return;
+        }
+        int currentPosition = getAdapterPosition(holder);
+        if (null == mCustomAnimator) {
+            if (null == mAnimationType || (!showItemAnimationEveryTime && currentPosition <=
+                    mLastItemPosition)) {
+                return;
             }
+            mLastItemPosition = currentPosition;
+        }
+        long now = SystemClock.uptimeMillis();
+        long duration = mAnimationScheduler.scaleDuration(mAnimationDuration, now);
+        if (duration == ItemAnimationScheduler.SKIP) {
+            return;
+        }
+        boolean wasInCascade = mAnimationScheduler.isInCascade();
+        long startDelay = mAnimationScheduler.schedule(duration, now);
+        if (!wasInCascade && mAnimationScheduler.isInCascade()) {
+            // Rows bound in the same layout pass share a cascade
+            mMainHandler.post(mEndCascadeRunnable);
+        }
+        if (startDelay == ItemAnimationScheduler.SKIP) {
+            return;
+        }
+        if (null != mCustomAnimator) {
+            holder.resetItemAnimation();
+            holder.mItemAnimator = mCustomAnimator.getAnimator(holder.itemView).setDuration
+                    (duration);
+            holder.mItemAnimator.setStartDelay(startDelay);
+            holder.mItemAnimator.start();
+        } else {
+            AnimationUtil.animate(holder.itemView, mAnimationType, duration, startDelay,
+                    mItemAnimationInterpolator);
+            holder.mBindAnimationEndTime = now + startDelay + duration;
         }
     }
 
@@ -182,7 +580,7 @@ public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder
             holder.itemView.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View view) {
-                    final int position = holder.getAdapterPosition() - getHeaderViewCount();
+                    final int position = getAdapterPosition(holder) - getHeaderViewCount();
                     mOnItemClickListener.onClick(view, mData.get(position), position);
                 }
             });
@@ -192,7 +590,7 @@ public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder
             holder.itemView.setOnLongClickListener(new View.OnLongClickListener() {
                 @Override
                 public boolean onLongClick(View v) {
-                    final int position = holder.getAdapterPosition() - getHeaderViewCount();
+                    final int position = getAdapterPosition(holder) - getHeaderViewCount();
                     mOnItemLongClickListener.onLongClick(v, mData.get(position), position);
                     return true;
                 }
@@ -200,6 +598,20 @@ public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder
         }
     }
 
+    /**
+     * A holder from {@link SharedViewPool} still has the click listeners of the adapter which
+     * created it.
+     */
+    private void adoptViewHolder(BaseViewHolder holder) {
+        holder.mOwnerAdapter = this;
+        holder.mResourceCache = mResourceCache;
+        holder.itemView.setOnClickListener(null);
+        holder.itemView.setOnLongClickListener(null);
+        holder.itemView.setClickable(null != mOnItemClickListener);
+        holder.itemView.setLongClickable(null != mOnItemLongClickListener);
+        bindClickListenerToItemView(holder);
+    }
+
     protected final void bindClickListenerToHeaderView(BaseViewHolder holder) {
         if (null != mOnHeaderClickListener) {
             holder.itemView.setOnClickListener(new View.OnClickListener() {
@@ -218,27 +630,18 @@ public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder
      */
     private void translateHeader(float of) {
         float ofCalculated = of * mScrollMultiplier;
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB && of < mHeaderView.getHeight
-                ()) {
+        if (of < mHeaderView.getHeight()) {
             mHeaderView.setTranslationY(ofCalculated);
-        } else if (of < mHeaderView.getHeight()) {
-            TranslateAnimation anim = new TranslateAnimation(0, 0, ofCalculated, ofCalculated);
-            anim.setFillAfter(true);
-            anim.setDuration(0);
-            mHeaderView.startAnimation(anim);
         }
         mHeaderView.setClipY(Math.round(ofCalculated));
         if (mParallaxScrollListener != null) {
-            final RecyclerView.ViewHolder holder = mRecyclerView.findViewHolderForAdapterPosition
-                    (0);
-            float left;
-            if (holder != null) {
-                left = Math.min(1, ((ofCalculated) / (mHeaderView.getHeight() *
-                        mScrollMultiplier)));
-            } else {
-                left = 1;
+            // The offset is clamped to header height once the header is gone
+            float left = mHeaderView.getHeight() > 0 ? Math.min(1, ofCalculated / (mHeaderView
+                    .getHeight() * mScrollMultiplier)) : 1;
+            if (left != mLastParallaxPercentage) {
+                mLastParallaxPercentage = left;
+                mParallaxScrollListener.onParallaxScroll(left, of, mHeaderView);
             }
-            mParallaxScrollListener.onParallaxScroll(left, of, mHeaderView);
         }
     }
 
@@ -250,144 +653,1113 @@ public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder
 
     protected abstract int getItemViewLayoutId(int position, T item);
 
-    public void addFirstDataSet(List<T> data) {
-        mData = data;
-        notifyDataSetChanged();
-        hasAddData = true;
-    }
-
-    public void addMoreDataSet(List<T> data) {
-        mData.addAll(data);
-        notifyDataSetChanged();
+    /**
+     * Called instead of {@link #bindDataToItemView(BaseViewHolder, Object, int)} when only part
+     * of the item changed, override it to only update the changed views.
+     *
+     * @param payloads not empty, payloads of all changes since last bind
+     */
+    protected void bindPartial(BaseViewHolder holder, T item, int position, List<Object>
+            payloads) {
+        bindDataToItemView(holder, item, position);
     }
 
-    public List<T> getDataSource() {
-        return mData;
+    /**
+     * If a {@link DiffCallback} is set and first data has been added, it works as
+     * {@link #submitList(List)}.
+     */
+    public void addFirstDataSet(List<T> data) {
+        if (null != mDiffCallback && hasAddData) {
+            submitList(data);
+            return;
+        }
+        replaceData(data);
     }
 
-    protected Context getContext() {
-        return mContext;
+    public void addMoreDataSet(List<T> data) {
+        insertItems(mData.size(), data);
     }
 
-    protected T getItem(int position) {
-        return mData.get(position);
+    public void insertItem(int index, T item) {
+        checkEditable();
+        mData.add(index, item);
+        dispatchInserted(index, 1);
     }
 
-    @Override
-    public int getItemCount() {
-        if (mData.size() == 0 && mEmptyView != null) {
-            return getHeaderViewCount() + 1;
-        } else {
-            return mData.size() + getHeaderViewCount();
+    public void insertItems(int index, List<T> items) {
+        if (null == items || items.isEmpty()) {
+            return;
         }
+        checkEditable();
+        mData.addAll(index, items);
+        dispatchInserted(index, items.size());
     }
 
+    public void removeItem(int index) {
+        removeRange(index, 1);
+    }
 
     /**
-     * Listener api
+     * @param index first data position to remove
+     * @param count number of items to remove
      */
-
-    public void setOnItemClickListener(OnItemClickListener onItemClickListener) {
-        mOnItemClickListener = onItemClickListener;
+    public void removeRange(int index, int count) {
+        if (count <= 0) {
+            return;
+        }
+        checkEditable();
+        mData.subList(index, index + count).clear();
+        dispatchRemoved(index, count);
     }
 
-    public void setOnItemLongClickListener(OnItemLongClickListener onItemLongClickListener) {
-        mOnItemLongClickListener = onItemLongClickListener;
+    public void moveItem(int fromIndex, int toIndex) {
+        if (fromIndex == toIndex) {
+            return;
+        }
+        checkEditable();
+        mData.add(toIndex, mData.remove(fromIndex));
+        dispatchMoved(fromIndex, toIndex);
     }
 
-    public void setOnHeaderClickListener(OnHeaderClickListener onHeaderClickListener) {
-        mOnHeaderClickListener = onHeaderClickListener;
+    /**
+     * Call it after you changed the item at index in place.
+     */
+    public void updateItem(int index) {
+        updateRange(index, 1, null);
     }
 
-
     /**
-     * Animation api
+     * @param payload passed to {@link #bindPartial(BaseViewHolder, Object, int, List)}, such as
+     *                a {@link ChangePayload}
      */
-    public void setItemAnimation(AnimationType animationType) {
-        mAnimationType = animationType;
+    public void updateItem(int index, Object payload) {
+        updateRange(index, 1, payload);
     }
 
-    public void setItemAnimationDuration(int animationDuration) {
-        mAnimationDuration = animationDuration;
+    public void updateRange(int index, int count) {
+        updateRange(index, count, null);
     }
 
-    public void setItemAnimationInterpolator(Interpolator animationInterpolator) {
-        mItemAnimationInterpolator = animationInterpolator;
+    public void updateRange(int index, int count, Object payload) {
+        if (index < 0 || count <= 0 || index + count > mData.size()) {
+            throw new IndexOutOfBoundsException("Update range " + index + "+" + count + " is out" +
+                    " of data size " + mData.size());
+        }
+        dispatchChanged(index, count, payload);
     }
 
-    public void setShowItemAnimationEveryTime(boolean showItemAnimationEveryTime) {
-        this.showItemAnimationEveryTime = showItemAnimationEveryTime;
+    /**
+     * If a {@link DiffCallback} is set, the change payload of old item and new item is
+     * passed to {@link #bindPartial(BaseViewHolder, Object, int, List)}.
+     */
+    public void setItem(int index, T item) {
+        checkEditable();
+        T oldItem = mData.set(index, item);
+        Object payload = null;
+        if (null != mDiffCallback && mDiffCallback.areItemsTheSame(oldItem, item)) {
+            if (mDiffCallback.areContentsTheSame(oldItem, item)) {
+                return;
+            }
+            payload = mDiffCallback.getChangePayload(oldItem, item);
+        }
+        dispatchChanged(index, 1, payload);
     }
 
-    public void setCustomItemAnimator(CustomAnimator customAnimator) {
-        mCustomAnimator = customAnimator;
+    private void checkEditable() {
+        if (mData instanceof PagedList) {
+            throw new UnsupportedOperationException("Paged list can not be edited, set a new " +
+                    "one instead");
+        }
     }
 
+    public List<T> getDataSource() {
+        return mData;
+    }
 
     /**
-     * Header api
+     * @return a copy of the data to read on background, such as for filtering. It is O(1) if
+     * the data is a {@link ChunkedList}, otherwise the data is copied. The copy does not follow
+     * later edits, so positions found in it may be stale by the time they are used.
+     * @throws UnsupportedOperationException if the data is a {@link PagedList}, copying it
+     *                                       would load every page.
      */
-    public void addHeaderView(View headerView) {
-        mHeaderView = new CustomRelativeWrapper(headerView.getContext());
-        mHeaderView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams
-                .WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
-        mHeaderView.addView(headerView);
-        notifyItemChanged(0);
-    }
-
-    public void addHeaderViewResId(int layoutResId) {
-        addHeaderView(mInflater.inflate(layoutResId, null));
-    }
-
-    public void addParallaxHeaderView(View headerView, final RecyclerView recyclerView) {
-        mRecyclerView = recyclerView;
-        mHeaderView = new CustomRelativeWrapper(headerView.getContext(), mShouldClipView);
-        mHeaderView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams
-                .WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
-        mHeaderView.addView(headerView, new RelativeLayout.LayoutParams(ViewGroup.LayoutParams
-                .MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
-        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
-            @Override
-            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-                super.onScrolled(recyclerView, dx, dy);
-                if (mHeaderView != null) {
-                    translateHeader(mRecyclerView.getLayoutManager().getChildAt(0) == mHeaderView ?
-                            mRecyclerView.computeVerticalScrollOffset() : mHeaderView.getHeight());
-                }
-            }
-        });
+    public List<T> getDataSnapshot() {
+        if (mData instanceof PagedList) {
+            throw new UnsupportedOperationException("Paged list can not be copied");
+        }
+        if (mData instanceof ChunkedList) {
+            return ((ChunkedList<T>) mData).snapshot();
+        }
+        return new ArrayList<>(mData);
     }
 
-    public void addParallaxHeaderViewLayoutResId(int layoutResId, final RecyclerView recyclerView) {
-        addParallaxHeaderView(mInflater.inflate(layoutResId, null), recyclerView);
+    protected Context getContext() {
+        return mContext;
     }
 
-    public boolean isShouldClipView() {
-        return mShouldClipView;
+    /**
+     * Resources resolved by holders of this adapter, use it in bindDataToItemView too.
+     */
+    protected ResourceCache getResourceCache() {
+        return mResourceCache;
     }
 
-    public void setParallaxScrollListener(OnParallaxScrollListener parallaxScroll) {
-        mParallaxScrollListener = parallaxScroll;
-        mParallaxScrollListener.onParallaxScroll(0, 0, mHeaderView);
+    protected T getItem(int position) {
+        return mData.get(position);
     }
 
-    public void setScrollMultiplier(float mul) {
-        if (mul < 0 || mul > 1f) {
-            throw new IllegalArgumentException("Scroll multiplier must between 0 to 1f");
+    /**
+     * Same as {@link #getItem(int)} but it does not load the page of a paged list.
+     */
+    private T peekItem(int position) {
+        if (mData instanceof PagedList) {
+            return ((PagedList<T>) mData).peek(position);
         }
-        this.mScrollMultiplier = mul;
+        return mData.get(position);
     }
 
-    private int getHeaderViewCount() {
-        return null == mHeaderView ? 0 : 1;
+    @Override
+    public int getItemCount() {
+        if (mData.size() == 0 && mEmptyView != null) {
+            return getHeaderViewCount() + 1;
+        } else {
+            return mData.size() + getHeaderViewCount() + (hasLoadMoreFooter() ? 1 : 0);
+        }
     }
 
 
     /**
-     * Empty view /retry view / loading view api
+     * Diff api
      */
-    public void setEmptyView(View emptyView) {
-        mEmptyView = emptyView;
+    public void setDiffCallback(DiffCallback<T> diffCallback) {
+        mDiffCallback = diffCallback;
+    }
+
+    /**
+     * @param diffExecutor executor to calculate diff on, default is a shared pool of 2 threads.
+     */
+    public void setDiffExecutor(Executor diffExecutor) {
+        mDiffExecutor = diffExecutor;
+    }
+
+    /**
+     * Replaces the data set, the diff is calculated on background and only the changed ranges
+     * are notified on main thread. If another list is submitted before the diff finished, the
+     * stale result is dropped. If the data is edited before the diff finished, such as by
+     * {@link #insertItem(int, Object)}, the diff is calculated again from the edited data.
+     * <p>
+     * The submitted list must not be mutated after it is submitted.
+     *
+     * @param data new data set
+     */
+    public void submitList(final List<T> data) {
+        final List<T> newData = null == data ? new ArrayList<T>() : data;
+        final int runGeneration = ++mMaxScheduledGeneration;
+        if (newData == mData) {
+            return;
+        }
+        if (mData instanceof PagedList || newData instanceof PagedList) {
+            // Diffing would load every page of a paged list
+            replaceData(newData);
+            return;
+        }
+        final int dataVersion = mDataVersion;
+        // The copy only keeps the diff thread from reading the list while it is edited, the
+        // result is made stale by such edits, see the data version check below
+        final List<T> oldData = getDataSnapshot();
+        final DiffCallback<T> diffCallback = mDiffCallback;
+        if (null == diffCallback || !canDispatchRangeUpdates(oldData, newData)) {
+            mData = newData;
+            dispatchDataSetChanged();
+            hasAddData = true;
+            return;
+        }
+        getDiffExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final ListDiffer.DiffResult<T> result = ListDiffer.calculateDiff(oldData,
+                        newData, diffCallback);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (runGeneration != mMaxScheduledGeneration) {
+                            return;
+                        }
+                        if (dataVersion != mDataVersion) {
+                            // Positions of the result do not match the edited data
+                            submitList(newData);
+                            return;
+                        }
+                        mData = newData;
+                        result.dispatchUpdatesTo(null != mUpdateBatch ? mUpdateBatch :
+                                mAdapterUpdateCallback);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * All data positions are offset by header here, and a change of data size which makes
+     * the empty view show or hide will also notify its row.
+     */
+    private void dispatchInserted(int index, int count) {
+        mDataVersion++;
+        if (null != mUpdateBatch) {
+            mUpdateBatch.onInserted(index, count);
+            return;
+        }
+        if (isShowingLoadingView()) {
+            notifyDataSetChanged();
+            return;
+        }
+        if (null != mKeyIndex) {
+            mKeyIndex.onInserted(index, count, mKeySource);
+        }
+        if (null != mEmptyView && mData.size() == count) {
+            if (hasLoadMoreFooter()) {
+                // The empty view row is pushed down and becomes the footer
+                notifyEditInserted(index, count);
+                notifyItemChanged(getHeaderViewCount() + count);
+                return;
+            }
+            notifyItemRemoved(getHeaderViewCount());
+        }
+        notifyEditInserted(index, count);
+    }
+
+    private void notifyEditInserted(int index, int count) {
+        isNotifyingEdit = true;
+        mAdapterUpdateCallback.onInserted(index, count);
+        isNotifyingEdit = false;
+    }
+
+    private void dispatchRemoved(int index, int count) {
+        mDataVersion++;
+        if (null != mUpdateBatch) {
+            mUpdateBatch.onRemoved(index, count);
+            return;
+        }
+        if (isShowingLoadingView()) {
+            notifyDataSetChanged();
+            return;
+        }
+        if (null != mKeyIndex) {
+            mKeyIndex.onRemoved(index, count, mKeySource);
+        }
+        isNotifyingEdit = true;
+        mAdapterUpdateCallback.onRemoved(index, count);
+        isNotifyingEdit = false;
+        if (null != mEmptyView && mData.size() == 0) {
+            if (null != mOnLoadMoreListener) {
+                // The footer row becomes the empty view
+                notifyItemChanged(getHeaderViewCount());
+                return;
+            }
+            notifyItemInserted(getHeaderViewCount());
+        }
+    }
+
+    private void dispatchMoved(int fromIndex, int toIndex) {
+        mDataVersion++;
+        if (null != mUpdateBatch) {
+            mUpdateBatch.onMoved(fromIndex, toIndex);
+            return;
+        }
+        if (isShowingLoadingView()) {
+            notifyDataSetChanged();
+            return;
+        }
+        if (null != mKeyIndex) {
+            mKeyIndex.onMoved(fromIndex, toIndex, mKeySource);
+        }
+        isNotifyingEdit = true;
+        mAdapterUpdateCallback.onMoved(fromIndex, toIndex);
+        isNotifyingEdit = false;
+    }
+
+    private void dispatchChanged(int index, int count, Object payload) {
+        mDataVersion++;
+        if (null != mUpdateBatch) {
+            mUpdateBatch.onChanged(index, count, payload);
+            return;
+        }
+        if (isShowingLoadingView()) {
+            notifyDataSetChanged();
+            return;
+        }
+        isNotifyingEdit = true;
+        mAdapterUpdateCallback.onChanged(index, count, payload);
+        isNotifyingEdit = false;
+    }
+
+    /**
+     * @return true while a single edit of items is notified, such as by
+     * {@link #insertItem(int, Object)}, so observers can read the data at the notified
+     * positions. Diff results and batches notify several steps after the data is replaced,
+     * the data only matches their last step.
+     */
+    boolean isNotifyingEdit() {
+        return isNotifyingEdit;
+    }
+
+    private void dispatchDataSetChanged() {
+        mDataVersion++;
+        if (null != mUpdateBatch) {
+            mBatchInvalidated = true;
+            return;
+        }
+        notifyDataSetChanged();
+    }
+
+    private boolean isShowingLoadingView() {
+        return !hasAddData && null != mLoadingView;
+    }
+
+    /**
+     * Loading view and empty view take a row which is not in data set, so we can not
+     * notify ranges while they are showing or will be showing.
+     */
+    private boolean canDispatchRangeUpdates(List<T> oldData, List<T> newData) {
+        if (isShowingLoadingView()) {
+            return false;
+        }
+        return null == mEmptyView || (oldData.size() > 0 && newData.size() > 0);
+    }
+
+    Executor getDiffExecutor() {
+        if (null != mDiffExecutor) {
+            return mDiffExecutor;
+        }
+        synchronized (BaseAdapter.class) {
+            if (null == sDiffExecutor) {
+                sDiffExecutor = Executors.newFixedThreadPool(2);
+            }
+            return sDiffExecutor;
+        }
+    }
+
+
+    /**
+     * Paging api
+     */
+
+    /**
+     * Shows a list whose items are loaded in pages on demand. Items not loaded yet are null in
+     * {@link #bindDataToItemView(BaseViewHolder, Object, int)}, bind a placeholder for them,
+     * their rows are bound again when their page is loaded or evicted.
+     * <p>
+     * The list replaces the data set without diff, so it is never read as a whole. For the
+     * same reason {@link #submitList(List)} only replaces a paged list, and
+     * {@link #getDataSnapshot()} and the item edits such as {@link #insertItem(int, Object)}
+     * throw {@link UnsupportedOperationException} while it is the data set.
+     */
+    public void setPagedList(final PagedList<T> pagedList) {
+        pagedList.setCallback(new PagedList.Callback() {
+            @Override
+            public void onItemRangeChanged(int position, int count) {
+                // The data set may have been replaced since
+                if (mData == pagedList) {
+                    dispatchChanged(position, count, null);
+                }
+            }
+        });
+        replaceData(pagedList);
+    }
+
+    private void replaceData(List<T> data) {
+        mMaxScheduledGeneration++;
+        mData = data;
+        // A new data set enters again
+        mLastItemPosition = -1;
+        mLoadMoreState = LOAD_MORE_IDLE;
+        mMainHandler.removeCallbacks(mLoadMoreRunnable);
+        dispatchDataSetChanged();
+        hasAddData = true;
+    }
+
+
+    /**
+     * Change queue api
+     */
+
+    /**
+     * Adds the item after the last item, it can be called on any thread. Posted changes are
+     * applied on main thread once per frame in posted order, and notified together like a
+     * {@link #batch(Runnable)}.
+     * <p>
+     * Paged list can not be edited, posting throws then, and changes still queued when one is
+     * set are dropped.
+     */
+    public void postAdd(T item) {
+        checkEditable();
+        postChange(mChangeQueue.insert(ChangeQueue.APPEND, item));
+    }
+
+    /**
+     * @param index resolved when the change is applied, after the changes posted before it.
+     *              A change whose index is out of data by then is dropped.
+     */
+    public void postInsert(int index, T item) {
+        checkEditable();
+        postChange(mChangeQueue.insert(index, item));
+    }
+
+    /**
+     * Works as {@link #setItem(int, Object)} when applied.
+     */
+    public void postUpdate(int index, T item) {
+        checkEditable();
+        postChange(mChangeQueue.update(index, item));
+    }
+
+    public void postRemove(int index) {
+        checkEditable();
+        postChange(mChangeQueue.remove(index));
+    }
+
+    /**
+     * @param budgetMillis time posted changes may take in a frame, default is 4ms, the rest
+     *                     are applied in next frames.
+     */
+    public void setChangeFrameBudget(long budgetMillis) {
+        mChangeFrameBudgetNanos = budgetMillis * 1000000;
+    }
+
+    private void postChange(boolean shouldSchedule) {
+        if (shouldSchedule) {
+            // Choreographer must be reached on main thread
+            mMainHandler.post(mScheduleDrainRunnable);
+        }
+    }
+
+    private void scheduleDrain() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (null == mDrainFrameCallback) {
+                mDrainFrameCallback = new DrainFrameCallback(mDrainRunnable);
+            }
+            Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback)
+                    mDrainFrameCallback);
+        } else {
+            mMainHandler.post(mDrainRunnable);
+        }
+    }
+
+    private void drainChangeQueue() {
+        boolean hasMore;
+        beginBatch();
+        try {
+            hasMore = mChangeQueue.drain(mChangeQueueTarget, mChangeFrameBudgetNanos);
+        } finally {
+            commitBatch();
+        }
+        if (hasMore) {
+            scheduleDrain();
+        }
+    }
+
+
+    /**
+     * Load more api
+     */
+
+    /**
+     * Shows a footer row after the data and asks for more when a row within the prefetch
+     * distance of the end is bound. Call {@link #finishLoadMore()}, {@link #failLoadMore()} or
+     * {@link #endLoadMore()} when the request is done, no new request is made until then.
+     */
+    public void setOnLoadMoreListener(OnLoadMoreListener onLoadMoreListener) {
+        boolean hadFooter = hasLoadMoreFooter();
+        mOnLoadMoreListener = onLoadMoreListener;
+        if (hadFooter != hasLoadMoreFooter()) {
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * @param prefetchDistance number of rows from the end at which more are asked, default
+     *                         is 5, loading early hides the latency behind scrolling.
+     */
+    public void setLoadMorePrefetchDistance(int prefetchDistance) {
+        mLoadMorePrefetchDistance = Math.max(0, prefetchDistance);
+    }
+
+    /**
+     * @param loadingView shown in footer while loading, default is a progress bar.
+     */
+    public void setLoadMoreLoadingView(View loadingView) {
+        mLoadMoreLoadingView = replaceFooterView(mLoadMoreLoadingView, loadingView);
+    }
+
+    /**
+     * @param errorView shown in footer after {@link #failLoadMore()}, click it to retry. Null
+     *                  removes the current one.
+     */
+    public void setLoadMoreErrorView(View errorView) {
+        if (null != mLoadMoreErrorView) {
+            mLoadMoreErrorView.setOnClickListener(null);
+        }
+        mLoadMoreErrorView = replaceFooterView(mLoadMoreErrorView, errorView);
+        if (null != errorView) {
+            errorView.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View view) {
+                    retryLoadMore();
+                }
+            });
+        }
+    }
+
+    /**
+     * @param endView shown in footer after {@link #endLoadMore()}.
+     */
+    public void setLoadMoreEndView(View endView) {
+        mLoadMoreEndView = replaceFooterView(mLoadMoreEndView, endView);
+    }
+
+    /**
+     * Call it after more data is added, it asks again if the end is still in sight.
+     */
+    public void finishLoadMore() {
+        setLoadMoreState(LOAD_MORE_IDLE);
+    }
+
+    public void failLoadMore() {
+        setLoadMoreState(LOAD_MORE_ERROR);
+    }
+
+    /**
+     * There is no more data, no more request is made until the data set is replaced.
+     */
+    public void endLoadMore() {
+        setLoadMoreState(LOAD_MORE_END);
+    }
+
+    public void retryLoadMore() {
+        if (mLoadMoreState == LOAD_MORE_ERROR) {
+            setLoadMoreState(LOAD_MORE_IDLE);
+        }
+    }
+
+    public boolean isLoadingMore() {
+        return mLoadMoreState == LOAD_MORE_LOADING;
+    }
+
+    private boolean hasLoadMoreFooter() {
+        return null != mOnLoadMoreListener && !isShowingLoadingView() && (mData.size() > 0 ||
+                null == mEmptyView);
+    }
+
+    /**
+     * Called from bind, so the listener is called after the layout pass. A request is in
+     * flight until its state is set, so the same page is never asked twice.
+     */
+    private void requestLoadMore() {
+        if (null == mOnLoadMoreListener || mLoadMoreState != LOAD_MORE_IDLE) {
+            return;
+        }
+        mLoadMoreState = LOAD_MORE_LOADING;
+        updateLoadMoreFooter();
+        mMainHandler.post(mLoadMoreRunnable);
+    }
+
+    private void setLoadMoreState(int state) {
+        if (mLoadMoreState == state) {
+            return;
+        }
+        mLoadMoreState = state;
+        mMainHandler.removeCallbacks(mLoadMoreRunnable);
+        if (hasLoadMoreFooter()) {
+            // Binding the footer asks again if it is on screen
+            notifyItemChanged(mData.size() + getHeaderViewCount(), LOAD_MORE_PAYLOAD);
+        }
+    }
+
+    private void bindLoadMoreFooter() {
+        updateLoadMoreFooter();
+        requestLoadMore();
+    }
+
+    private void updateLoadMoreFooter() {
+        if (null == mLoadMoreFooter) {
+            return;
+        }
+        boolean loading = mLoadMoreState == LOAD_MORE_IDLE || mLoadMoreState ==
+                LOAD_MORE_LOADING;
+        setFooterViewVisible(mLoadMoreLoadingView, loading);
+        setFooterViewVisible(mLoadMoreErrorView, mLoadMoreState == LOAD_MORE_ERROR);
+        setFooterViewVisible(mLoadMoreEndView, mLoadMoreState == LOAD_MORE_END);
+    }
+
+    private static void setFooterViewVisible(View view, boolean visible) {
+        if (null != view) {
+            view.setVisibility(visible ? View.VISIBLE : View.GONE);
+        }
+    }
+
+    /**
+     * Loading, error and end views share one footer row, only the one of current state is
+     * visible.
+     */
+    private View getLoadMoreFooter() {
+        if (null == mLoadMoreFooter) {
+            mLoadMoreFooter = new FrameLayout(mContext);
+            mLoadMoreFooter.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams
+                    .MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+            if (null == mLoadMoreLoadingView) {
+                mLoadMoreLoadingView = new ProgressBar(mContext);
+            }
+            addFooterView(mLoadMoreLoadingView);
+            addFooterView(mLoadMoreErrorView);
+            addFooterView(mLoadMoreEndView);
+            updateLoadMoreFooter();
+        }
+        return mLoadMoreFooter;
+    }
+
+    private View replaceFooterView(View oldView, View newView) {
+        if (null != mLoadMoreFooter) {
+            if (null != oldView) {
+                mLoadMoreFooter.removeView(oldView);
+            }
+            addFooterView(newView);
+            updateLoadMoreFooter();
+        }
+        return newView;
+    }
+
+    private void addFooterView(View view) {
+        if (null != view) {
+            mLoadMoreFooter.addView(view, new FrameLayout.LayoutParams(ViewGroup.LayoutParams
+                    .WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.CENTER));
+        }
+    }
+
+
+    /**
+     * Batch api
+     */
+
+    /**
+     * Starts recording data changes instead of notifying them, batches can be nested.
+     */
+    public void beginBatch() {
+        if (mBatchDepth++ == 0) {
+            mUpdateBatch = new UpdateBatch(mData.size());
+            mBatchStartSize = mData.size();
+            mBatchInvalidated = isShowingLoadingView();
+        }
+    }
+
+    /**
+     * Notifies all changes since {@link #beginBatch()} at once, adjacent and overlapping ranges
+     * are merged and removed insertions are dropped.
+     */
+    public void commitBatch() {
+        if (mBatchDepth == 0) {
+            throw new IllegalStateException("You must call beginBatch() before commitBatch()!");
+        }
+        if (--mBatchDepth > 0) {
+            return;
+        }
+        UpdateBatch updateBatch = mUpdateBatch;
+        mUpdateBatch = null;
+        if (mBatchInvalidated || isShowingLoadingView()) {
+            notifyDataSetChanged();
+            return;
+        }
+        boolean hadEmptyView = null != mEmptyView && mBatchStartSize == 0;
+        boolean hasEmptyView = null != mEmptyView && mData.size() == 0;
+        if (hadEmptyView && hasEmptyView) {
+            return;
+        }
+        if (hadEmptyView != hasEmptyView && null != mOnLoadMoreListener) {
+            // Footer comes or goes with the empty view, rare enough to rebind all
+            notifyDataSetChanged();
+            return;
+        }
+        if (hadEmptyView) {
+            notifyItemRemoved(getHeaderViewCount());
+        }
+        updateBatch.dispatchUpdatesTo(mAdapterUpdateCallback);
+        if (hasEmptyView) {
+            notifyItemInserted(getHeaderViewCount());
+        }
+    }
+
+    /**
+     * Runs updates in a batch, see {@link #beginBatch()}.
+     */
+    public void batch(Runnable updates) {
+        beginBatch();
+        try {
+            updates.run();
+        } finally {
+            commitBatch();
+        }
+    }
+
+
+    /**
+     * Listener api
+     */
+
+    public void setOnItemClickListener(OnItemClickListener onItemClickListener) {
+        mOnItemClickListener = onItemClickListener;
+    }
+
+    public void setOnItemLongClickListener(OnItemLongClickListener onItemLongClickListener) {
+        mOnItemLongClickListener = onItemLongClickListener;
+    }
+
+    public void setOnHeaderClickListener(OnHeaderClickListener onHeaderClickListener) {
+        mOnHeaderClickListener = onHeaderClickListener;
+    }
+
+
+    /**
+     * Animation api
+     */
+    public void setItemAnimation(AnimationType animationType) {
+        mAnimationType = animationType;
+    }
+
+    public void setItemAnimationDuration(int animationDuration) {
+        mAnimationDuration = animationDuration;
+    }
+
+    public void setItemAnimationInterpolator(Interpolator animationInterpolator) {
+        mItemAnimationInterpolator = animationInterpolator;
+    }
+
+    public void setShowItemAnimationEveryTime(boolean showItemAnimationEveryTime) {
+        this.showItemAnimationEveryTime = showItemAnimationEveryTime;
+    }
+
+    public void setCustomItemAnimator(CustomAnimator customAnimator) {
+        mCustomAnimator = customAnimator;
+    }
+
+    /**
+     * Item animations are skipped while the list scrolls faster than this and run in half
+     * duration above half of it, 0 never skips.
+     *
+     * @param flingThreshold velocity in px per second
+     */
+    public void setItemAnimationFlingThreshold(int flingThreshold) {
+        mAnimationScheduler.setFlingThreshold(flingThreshold);
+    }
+
+    /**
+     * @param staggerDelay delay in ms between the entries of rows which appear together,
+     *                     such as the first load, 0 starts them together
+     */
+    public void setItemAnimationStaggerDelay(int staggerDelay) {
+        mAnimationScheduler.setStaggerDelay(staggerDelay);
+    }
+
+    public void setMaxConcurrentItemAnimations(int maxConcurrentAnimations) {
+        mAnimationScheduler.setMaxConcurrentAnimations(maxConcurrentAnimations);
+    }
+
+
+    /**
+     * Header api
+     */
+    public void addHeaderView(View headerView) {
+        mHeaderView = new HeaderWrapper(headerView.getContext());
+        mHeaderView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams
+                .WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        mHeaderView.addView(headerView);
+        invalidateItemViewTypes(0, mItemViewTypes.length);
+        notifyItemChanged(0);
+    }
+
+    public void addHeaderViewResId(int layoutResId) {
+        addHeaderView(mInflater.inflate(layoutResId, null));
+    }
+
+    public void addParallaxHeaderView(View headerView, final RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+        mHeaderView = new HeaderWrapper(headerView.getContext(), mShouldClipView);
+        mHeaderView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams
+                .WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        mHeaderView.addView(headerView, new ViewGroup.LayoutParams(ViewGroup.LayoutParams
+                .MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        invalidateItemViewTypes(0, mItemViewTypes.length);
+        mHeaderScrollOffset = 0;
+        mLastParallaxPercentage = -1;
+        recyclerView.removeOnScrollListener(mParallaxScrollHandler);
+        recyclerView.addOnScrollListener(mParallaxScrollHandler);
+    }
+
+    public void addParallaxHeaderViewLayoutResId(int layoutResId, final RecyclerView recyclerView) {
+        addParallaxHeaderView(mInflater.inflate(layoutResId, null), recyclerView);
+    }
+
+    public boolean isShouldClipView() {
+        return mShouldClipView;
+    }
+
+    public void setParallaxScrollListener(OnParallaxScrollListener parallaxScroll) {
+        mParallaxScrollListener = parallaxScroll;
+        mParallaxScrollListener.onParallaxScroll(0, 0, mHeaderView);
+    }
+
+    public void setScrollMultiplier(float mul) {
+        if (mul < 0 || mul > 1f) {
+            throw new IllegalArgumentException("Scroll multiplier must between 0 to 1f");
+        }
+        this.mScrollMultiplier = mul;
+    }
+
+    /**
+     * @return position of the holder in this adapter, it differs from
+     * holder.getAdapterPosition() when this adapter is a segment of {@link CompositeAdapter}.
+     */
+    int getAdapterPosition(RecyclerView.ViewHolder holder) {
+        int position = holder.getAdapterPosition();
+        if (null == mParentAdapter || position == RecyclerView.NO_POSITION) {
+            return position;
+        }
+        return mParentAdapter.getLocalPosition(this, position);
+    }
+
+    int getHeaderViewCount() {
+        return null == mHeaderView ? 0 : 1;
+    }
+
+
+    /**
+     * View pool api
+     */
+
+    /**
+     * Share item holders with other adapters which use the same pool, it is applied when the
+     * adapter is attached to recycler view. It is ignored while the adapter is in a
+     * {@link CompositeAdapter}, whose view types only have meaning inside that composite.
+     */
+    public void setSharedViewPool(SharedViewPool sharedViewPool) {
+        mSharedViewPool = sharedViewPool;
+    }
+
+
+    /**
+     * Inflates views of the layout on background, so creating its first holders does not
+     * need to inflate on main thread. If the adapter is not attached yet, it starts when
+     * attached to recycler view. Views not used yet are dropped when it is detached.
+     *
+     * @param layoutId item layout id returned by getItemViewLayoutId
+     * @param count    max number of views kept for the layout
+     */
+    public void prewarm(int layoutId, int count) {
+        if (null == mAttachedRecyclerView) {
+            if (null == mPendingPrewarms) {
+                mPendingPrewarms = new SparseIntArray();
+            }
+            mPendingPrewarms.put(layoutId, Math.max(count, mPendingPrewarms.get(layoutId)));
+            return;
+        }
+        if (null == mViewPreInflater) {
+            mViewPreInflater = new ViewPreInflater(mContext);
+        }
+        mViewPreInflater.prewarm(layoutId, mAttachedRecyclerView, count);
+    }
+
+    /**
+     * @return number of item holders created with a prewarmed view.
+     */
+    public int getPrewarmHitCount() {
+        return null == mViewPreInflater ? 0 : mViewPreInflater.getHitCount();
+    }
+
+    /**
+     * @return number of item holders which had to inflate on main thread after prewarm.
+     */
+    public int getPrewarmMissCount() {
+        return null == mViewPreInflater ? 0 : mViewPreInflater.getMissCount();
+    }
+
+
+    /**
+     * Stable id api
+     */
+
+    /**
+     * Turns on stable ids, so recycler view keeps holders of unchanged items through
+     * {@link #notifyDataSetChanged()} and matches them in change animations. Keys must be
+     * unique, not {@link RecyclerView#NO_ID} and not below {@link #MIN_KEY}.
+     * <p>
+     * Recycler view only allows it before the adapter is set to it.
+     */
+    public void setKeyExtractor(KeyExtractor<T> keyExtractor) {
+        if (null != mKeyExtractor) {
+            mKeyExtractor = keyExtractor;
+            mKeyIndex.invalidate();
+            return;
+        }
+        setHasStableIds(true);
+        mKeyExtractor = keyExtractor;
+        mKeyIndex = new KeyIndex(mData.size());
+        registerInternalObserver(new KeyIndexUpdater());
+    }
+
+    /**
+     * @return data position of the item with the key, or {@link RecyclerView#NO_POSITION}.
+     * It is O(1), inserts and removals index again the items on their shorter side, other
+     * structural changes such as a diff index all items again on next lookup. Items of a
+     * paged list which are not loaded are not found.
+     */
+    public int positionOfKey(long key) {
+        if (null == mKeyExtractor) {
+            throw new IllegalStateException("You must call setKeyExtractor() first!");
+        }
+        return mKeyIndex.positionOf(key, mKeySource);
+    }
+
+    /**
+     * Header, loading view, empty view and footer rows take ids from the smallest long by
+     * their type, and an item of a paged list which is not loaded yet takes one by its
+     * position, so it is bound again as a new row once loaded.
+     */
+    @Override
+    public long getItemId(int position) {
+        if (null == mKeyExtractor) {
+            return super.getItemId(position);
+        }
+        int viewType = getItemViewType(position);
+        if (isPseudoViewType(viewType)) {
+            return Long.MIN_VALUE + viewType;
+        }
+        int dataPosition = position - getHeaderViewCount();
+        T item = peekItem(dataPosition);
+        if (null == item) {
+            return Long.MIN_VALUE + 0x100 + dataPosition;
+        }
+        return mKeyExtractor.getKey(item);
+    }
+
+    /**
+     * Recycler view only allows it while no observer is registered, so the observers this
+     * adapter registers on itself are taken off meanwhile.
+     */
+    @Override
+    public void setHasStableIds(boolean hasStableIds) {
+        for (RecyclerView.AdapterDataObserver observer : mInternalObservers) {
+            unregisterAdapterDataObserver(observer);
+        }
+        try {
+            super.setHasStableIds(hasStableIds);
+        } finally {
+            for (RecyclerView.AdapterDataObserver observer : mInternalObservers) {
+                registerAdapterDataObserver(observer);
+            }
+        }
+    }
+
+    void registerInternalObserver(RecyclerView.AdapterDataObserver observer) {
+        mInternalObservers.add(observer);
+        registerAdapterDataObserver(observer);
+    }
+
+
+    /**
+     * Height index api
+     */
+
+    /**
+     * Records the height of every laid out row, so pixel offsets of positions can be
+     * answered for rows of mixed heights. Rows not laid out yet are estimated by view type.
+     *
+     * @param estimatedItemHeight height in px used until any row is laid out
+     */
+    public void enableHeightIndex(int estimatedItemHeight) {
+        if (null != mHeightIndex) {
+            return;
+        }
+        mHeightIndex = new ItemHeightIndex(estimatedItemHeight);
+        mHeightIndex.reset(getItemCount());
+        registerInternalObserver(new HeightIndexUpdater());
+    }
+
+    /**
+     * @param position adapter position, including header
+     * @return offset in px of the top of the position from the top of the list.
+     */
+    public long getItemOffset(int position) {
+        return requireHeightIndex().getOffset(position);
+    }
+
+    /**
+     * @return adapter position of the row at the offset from the top of the list.
+     */
+    public int getPositionAtOffset(long offset) {
+        return requireHeightIndex().getPosition(offset);
+    }
+
+    public long getTotalItemHeight() {
+        return requireHeightIndex().getTotalHeight();
+    }
+
+    /**
+     * @return scrolled distance in px of the attached recycler view, 0 if nothing is laid out.
+     */
+    public long getScrollOffset() {
+        ItemHeightIndex heightIndex = requireHeightIndex();
+        if (null == mAttachedRecyclerView || mAttachedRecyclerView.getChildCount() == 0) {
+            return 0;
+        }
+        View firstChild = mAttachedRecyclerView.getChildAt(0);
+        int position = getAdapterPosition(mAttachedRecyclerView.getChildViewHolder(firstChild));
+        if (position == RecyclerView.NO_POSITION || position >= heightIndex.size()) {
+            return 0;
+        }
+        RecyclerView.LayoutParams layoutParams = (RecyclerView.LayoutParams) firstChild
+                .getLayoutParams();
+        return heightIndex.getOffset(position) + mAttachedRecyclerView.getPaddingTop() -
+                (mAttachedRecyclerView.getLayoutManager().getDecoratedTop(firstChild) -
+                        layoutParams.topMargin);
+    }
+
+    /**
+     * Jumps to the offset from the top of the list, it is exact with a
+     * {@link LinearLayoutManager}, other layout managers scroll to the row of the offset.
+     */
+    public void scrollToOffset(long offset) {
+        int position = requireHeightIndex().getPosition(offset);
+        if (null == mAttachedRecyclerView || position < 0) {
+            return;
+        }
+        RecyclerView.LayoutManager layoutManager = mAttachedRecyclerView.getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            ((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(position, (int)
+                    (mHeightIndex.getOffset(position) - offset));
+        } else {
+            layoutManager.scrollToPosition(position);
+        }
+    }
+
+    private ItemHeightIndex requireHeightIndex() {
+        if (null == mHeightIndex) {
+            throw new IllegalStateException("Call enableHeightIndex first!");
+        }
+        return mHeightIndex;
+    }
+
+    private int getDecoratedHeight(View child) {
+        RecyclerView.LayoutManager layoutManager = mAttachedRecyclerView.getLayoutManager();
+        RecyclerView.LayoutParams layoutParams = (RecyclerView.LayoutParams) child
+                .getLayoutParams();
+        return layoutManager.getDecoratedBottom(child) - layoutManager.getDecoratedTop(child) +
+                layoutParams.topMargin + layoutParams.bottomMargin;
+    }
+
+
+    /**
+     * Empty view /retry view / loading view api
+     */
+    public void setEmptyView(View emptyView) {
+        mEmptyView = emptyView;
     }
 
     /**
@@ -430,34 +1802,222 @@ public abstract class BaseAdapter<T> extends RecyclerView.Adapter<BaseViewHolder
         Animator getAnimator(View itemView);
     }
 
+    public interface KeyExtractor<T> {
+        /**
+         * @return unique key of the item, such as its database id, not below
+         * {@link BaseAdapter#MIN_KEY}.
+         */
+        long getKey(T item);
+    }
+
+    public interface OnLoadMoreListener {
+        /**
+         * Called on main thread, load the next page and add it with
+         * {@link BaseAdapter#addMoreDataSet(List)}.
+         */
+        void onLoadMore();
+    }
+
+    /**
+     * Every notification goes through here, even those sent by subclass after changing
+     * {@link #getDataSource()}, so cached view types can not get stale.
+     */
+    private class ViewTypeCacheInvalidator extends RecyclerView.AdapterDataObserver {
+        @Override
+        public void onChanged() {
+            invalidateItemViewTypes(0, mItemViewTypes.length);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            invalidateItemViewTypes(positionStart - getHeaderViewCount(), itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            invalidateItemViewTypes(positionStart - getHeaderViewCount(), mItemViewTypes.length);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            invalidateItemViewTypes(positionStart - getHeaderViewCount(), mItemViewTypes.length);
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            invalidateItemViewTypes(Math.min(fromPosition, toPosition) - getHeaderViewCount(),
+                    Math.abs(fromPosition - toPosition) + itemCount);
+        }
+    }
+
+    /**
+     * Drains the change queue on the next frame, only loaded on API 16+.
+     */
+    private static class DrainFrameCallback implements Choreographer.FrameCallback {
+        private final Runnable mDrainRunnable;
+
+        DrainFrameCallback(Runnable drainRunnable) {
+            mDrainRunnable = drainRunnable;
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mDrainRunnable.run();
+        }
+    }
+
     /**
-     * This is parallax header view wrapper class ,it aim to clip layout height on Y.
+     * Changed items are indexed again in place. Item edits update the index before they are
+     * notified, other structural changes, such as diff results which are notified in steps
+     * not matching the data, or rows which are not items, make the index built again.
      */
-    static class CustomRelativeWrapper extends RelativeLayout {
+    private class KeyIndexUpdater extends RecyclerView.AdapterDataObserver {
+        @Override
+        public void onChanged() {
+            mKeyIndex.invalidate();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            mKeyIndex.onChanged(positionStart - getHeaderViewCount(), itemCount, mKeySource);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            onItemRangeChanged(positionStart, itemCount);
+        }
 
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            onStructureChanged();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            onStructureChanged();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            onStructureChanged();
+        }
+
+        private void onStructureChanged() {
+            // Item edits updated the index before they were notified
+            if (!isNotifyingEdit) {
+                mKeyIndex.invalidate();
+            }
+        }
+    }
+
+    /**
+     * Keeps the height index in step with adapter positions. A diff result or batch is
+     * notified in several steps, the size only matches the item count after the last one, so
+     * the size is checked once the dispatch is done. If the notifications did not fit, such
+     * as a wrong notification of a subclass, it starts over then.
+     * <p>
+     * Changed rows keep their heights, the next layout records them again if their bounds
+     * change.
+     */
+    private class HeightIndexUpdater extends RecyclerView.AdapterDataObserver {
+        @Override
+        public void onChanged() {
+            mHeightIndex.reset(getItemCount());
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            if (positionStart <= mHeightIndex.size()) {
+                mHeightIndex.onInserted(positionStart, itemCount);
+            }
+            postSizeCheck();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            if (positionStart + itemCount <= mHeightIndex.size()) {
+                mHeightIndex.onRemoved(positionStart, itemCount);
+            }
+            postSizeCheck();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            if (Math.max(fromPosition, toPosition) + itemCount <= mHeightIndex.size()) {
+                // The moved block starts at toPosition after the move
+                for (int i = 0; i < itemCount; i++) {
+                    if (fromPosition > toPosition) {
+                        mHeightIndex.onMoved(fromPosition + i, toPosition + i);
+                    } else {
+                        mHeightIndex.onMoved(fromPosition, toPosition + itemCount - 1);
+                    }
+                }
+            }
+            postSizeCheck();
+        }
+
+        private void postSizeCheck() {
+            if (!isHeightSizeCheckPosted) {
+                isHeightSizeCheckPosted = true;
+                mMainHandler.post(mHeightSizeCheck);
+            }
+        }
+    }
+
+    /**
+     * This is header view wrapper class, it aim to clip layout height on Y for parallax.
+     * It holds a single child and measures it once, it is cheaper than a RelativeLayout.
+     */
+    static class HeaderWrapper extends ViewGroup {
+
+        private final Rect mClipRect = new Rect();
         private int mOffset;
         private boolean mShouldClip;
 
-        public CustomRelativeWrapper(Context context) {
+        public HeaderWrapper(Context context) {
             super(context);
         }
 
-        public CustomRelativeWrapper(Context context, boolean shouldClick) {
+        public HeaderWrapper(Context context, boolean shouldClick) {
             super(context);
             mShouldClip = shouldClick;
         }
 
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            int width = 0, height = 0;
+            if (getChildCount() > 0) {
+                View child = getChildAt(0);
+                measureChild(child, widthMeasureSpec, heightMeasureSpec);
+                width = child.getMeasuredWidth();
+                height = child.getMeasuredHeight();
+            }
+            setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height,
+                    heightMeasureSpec));
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int l, int t, int r, int b) {
+            if (getChildCount() > 0) {
+                View child = getChildAt(0);
+                child.layout(0, 0, child.getMeasuredWidth(), child.getMeasuredHeight());
+            }
+        }
+
         @Override
         protected void dispatchDraw(Canvas canvas) {
             if (mShouldClip) {
-                canvas.clipRect(new Rect(getLeft(), getTop(), getRight(), getBottom() + mOffset));
+                mClipRect.set(getLeft(), getTop(), getRight(), getBottom() + mOffset);
+                canvas.clipRect(mClipRect);
             }
             super.dispatchDraw(canvas);
         }
 
         public void setClipY(int offset) {
-            mOffset = offset;
-            invalidate();
+            if (mOffset != offset) {
+                mOffset = offset;
+                invalidate();
+            }
         }
     }
 }
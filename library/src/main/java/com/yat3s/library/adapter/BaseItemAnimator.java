@@ -0,0 +1,298 @@
+package com.yat3s.library.adapter;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.os.Build;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.SimpleItemAnimator;
+import android.view.View;
+import android.view.ViewPropertyAnimator;
+import android.view.animation.Interpolator;
+
+import java.util.ArrayList;
+
+/**
+ * Item animator which animates added and removed rows with an {@link AnimationType}, changed
+ * rows cross fade and moved rows slide to their new place.
+ * <p>
+ * Animations requested in a layout pass are started together in
+ * {@link #runPendingAnimations()}: removals first, then moves and changes, then additions,
+ * ordered by start delay rather than posted runnables. They run on the views' own
+ * {@link ViewPropertyAnimator} with hardware layers, and the bookkeeping of each animation
+ * is recycled. The view property animator still allocates its own animator and layer
+ * runnables per start.
+ */
+
+public class BaseItemAnimator extends SimpleItemAnimator {
+    private static final int ADD = 0;
+    private static final int REMOVE = 1;
+    private static final int MOVE = 2;
+    private static final int CHANGE_OLD = 3;
+    private static final int CHANGE_NEW = 4;
+
+    private AnimationType mAnimationType;
+    private Interpolator mInterpolator = AnimationUtil.DEFAULT_INTERPOLATOR;
+
+    private final ArrayList<Operation> mPendingOperations = new ArrayList<>();
+    private final ArrayList<Operation> mRunningOperations = new ArrayList<>();
+    private final ArrayList<Operation> mOperationPool = new ArrayList<>();
+
+    public BaseItemAnimator() {
+        this(AnimationType.ALPHA);
+    }
+
+    public BaseItemAnimator(AnimationType animationType) {
+        mAnimationType = animationType;
+    }
+
+    public void setAnimationType(AnimationType animationType) {
+        mAnimationType = animationType;
+    }
+
+    public void setInterpolator(Interpolator interpolator) {
+        mInterpolator = null != interpolator ? interpolator : AnimationUtil.DEFAULT_INTERPOLATOR;
+    }
+
+    @Override
+    public boolean animateRemove(RecyclerView.ViewHolder holder) {
+        endAnimation(holder);
+        addPendingOperation(REMOVE, holder, 0, 0);
+        return true;
+    }
+
+    @Override
+    public boolean animateAdd(RecyclerView.ViewHolder holder) {
+        endAnimation(holder);
+        AnimationUtil.setHiddenState(holder.itemView, mAnimationType);
+        addPendingOperation(ADD, holder, 0, 0);
+        return true;
+    }
+
+    @Override
+    public boolean animateMove(RecyclerView.ViewHolder holder, int fromX, int fromY, int toX,
+                               int toY) {
+        View view = holder.itemView;
+        fromX += (int) view.getTranslationX();
+        fromY += (int) view.getTranslationY();
+        endAnimation(holder);
+        int deltaX = toX - fromX;
+        int deltaY = toY - fromY;
+        if (deltaX == 0 && deltaY == 0) {
+            dispatchMoveFinished(holder);
+            return false;
+        }
+        // Keep the view at its old place until the move starts
+        view.setTranslationX(-deltaX);
+        view.setTranslationY(-deltaY);
+        addPendingOperation(MOVE, holder, 0, 0);
+        return true;
+    }
+
+    @Override
+    public boolean animateChange(RecyclerView.ViewHolder oldHolder, RecyclerView.ViewHolder
+            newHolder, int fromX, int fromY, int toX, int toY) {
+        if (oldHolder == newHolder) {
+            // Rebound in place, only its position can change
+            return animateMove(oldHolder, fromX, fromY, toX, toY);
+        }
+        float prevTranslationX = oldHolder.itemView.getTranslationX();
+        float prevTranslationY = oldHolder.itemView.getTranslationY();
+        float prevAlpha = oldHolder.itemView.getAlpha();
+        endAnimation(oldHolder);
+        int deltaX = (int) (toX - fromX - prevTranslationX);
+        int deltaY = (int) (toY - fromY - prevTranslationY);
+        oldHolder.itemView.setTranslationX(prevTranslationX);
+        oldHolder.itemView.setTranslationY(prevTranslationY);
+        oldHolder.itemView.setAlpha(prevAlpha);
+        addPendingOperation(CHANGE_OLD, oldHolder, deltaX, deltaY);
+        if (null != newHolder) {
+            endAnimation(newHolder);
+            newHolder.itemView.setTranslationX(-deltaX);
+            newHolder.itemView.setTranslationY(-deltaY);
+            newHolder.itemView.setAlpha(0f);
+            addPendingOperation(CHANGE_NEW, newHolder, 0, 0);
+        }
+        return true;
+    }
+
+    @Override
+    public void runPendingAnimations() {
+        if (mPendingOperations.isEmpty()) {
+            return;
+        }
+        boolean hasRemovals = false, hasMoves = false, hasChanges = false;
+        for (int i = 0; i < mPendingOperations.size(); i++) {
+            int type = mPendingOperations.get(i).mType;
+            hasRemovals |= type == REMOVE;
+            hasMoves |= type == MOVE;
+            hasChanges |= type == CHANGE_OLD || type == CHANGE_NEW;
+        }
+        // Start delays put the whole run in order, it is started in one go
+        long moveDelay = hasRemovals ? getRemoveDuration() : 0;
+        long addDelay = moveDelay + Math.max(hasMoves ? getMoveDuration() : 0, hasChanges ?
+                getChangeDuration() : 0);
+        for (int i = 0; i < mPendingOperations.size(); i++) {
+            Operation operation = mPendingOperations.get(i);
+            mRunningOperations.add(operation);
+            switch (operation.mType) {
+                case REMOVE:
+                    operation.start(0, getRemoveDuration());
+                    break;
+                case MOVE:
+                    operation.start(moveDelay, getMoveDuration());
+                    break;
+                case CHANGE_OLD:
+                case CHANGE_NEW:
+                    operation.start(moveDelay, getChangeDuration());
+                    break;
+                case ADD:
+                    operation.start(addDelay, getAddDuration());
+                    break;
+            }
+        }
+        mPendingOperations.clear();
+    }
+
+    @Override
+    public void endAnimation(RecyclerView.ViewHolder holder) {
+        // Cancelling finishes the running operation of the view through its listener
+        holder.itemView.animate().cancel();
+        for (int i = mPendingOperations.size() - 1; i >= 0; i--) {
+            Operation operation = mPendingOperations.get(i);
+            if (operation.mHolder == holder) {
+                mPendingOperations.remove(i);
+                operation.finish();
+            }
+        }
+        dispatchFinishedWhenDone();
+    }
+
+    @Override
+    public void endAnimations() {
+        for (int i = mPendingOperations.size() - 1; i >= 0; i--) {
+            mPendingOperations.remove(i).finish();
+        }
+        // Each cancel removes the last running operation
+        for (int i = mRunningOperations.size() - 1; i >= 0; i--) {
+            if (i < mRunningOperations.size()) {
+                mRunningOperations.get(i).mHolder.itemView.animate().cancel();
+            }
+        }
+        dispatchAnimationsFinished();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return !mPendingOperations.isEmpty() || !mRunningOperations.isEmpty();
+    }
+
+    private void addPendingOperation(int type, RecyclerView.ViewHolder holder, int deltaX, int
+            deltaY) {
+        Operation operation = mOperationPool.isEmpty() ? new Operation() : mOperationPool
+                .remove(mOperationPool.size() - 1);
+        operation.mType = type;
+        operation.mHolder = holder;
+        operation.mDeltaX = deltaX;
+        operation.mDeltaY = deltaY;
+        mPendingOperations.add(operation);
+    }
+
+    private void dispatchFinishedWhenDone() {
+        if (!isRunning()) {
+            dispatchAnimationsFinished();
+        }
+    }
+
+    /**
+     * One animation of a view, it is its own listener and goes back to pool when finished.
+     */
+    private class Operation extends AnimatorListenerAdapter {
+        int mType;
+        RecyclerView.ViewHolder mHolder;
+        // Where the old view of a change slides to
+        int mDeltaX, mDeltaY;
+
+        void start(long startDelay, long duration) {
+            View view = mHolder.itemView;
+            ViewPropertyAnimator animator = view.animate();
+            switch (mType) {
+                case ADD:
+                    animator.alpha(1f).scaleX(1f).scaleY(1f).translationX(0).translationY(0);
+                    break;
+                case REMOVE:
+                    AnimationUtil.animateToHiddenState(animator, view, mAnimationType);
+                    break;
+                case MOVE:
+                    animator.translationX(0).translationY(0);
+                    break;
+                case CHANGE_OLD:
+                    animator.alpha(0f).translationX(mDeltaX).translationY(mDeltaY);
+                    break;
+                case CHANGE_NEW:
+                    animator.alpha(1f).translationX(0).translationY(0);
+                    break;
+            }
+            animator.setDuration(duration)
+                    .setStartDelay(startDelay)
+                    .setInterpolator(mInterpolator)
+                    .setListener(this);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                animator.withLayer();
+            }
+            animator.start();
+        }
+
+        @Override
+        public void onAnimationStart(Animator animation) {
+            switch (mType) {
+                case ADD:
+                    dispatchAddStarting(mHolder);
+                    break;
+                case REMOVE:
+                    dispatchRemoveStarting(mHolder);
+                    break;
+                case MOVE:
+                    dispatchMoveStarting(mHolder);
+                    break;
+                case CHANGE_OLD:
+                case CHANGE_NEW:
+                    dispatchChangeStarting(mHolder, mType == CHANGE_OLD);
+                    break;
+            }
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            mHolder.itemView.animate().setListener(null);
+            mRunningOperations.remove(this);
+            finish();
+            dispatchFinishedWhenDone();
+        }
+
+        /**
+         * Puts the view to rest and reports the animation finished, then recycles itself.
+         */
+        void finish() {
+            RecyclerView.ViewHolder holder = mHolder;
+            // Removed and changed out views are recycled, they must be reusable as well
+            AnimationUtil.clearProperties(holder.itemView);
+            mHolder = null;
+            mOperationPool.add(this);
+            switch (mType) {
+                case ADD:
+                    dispatchAddFinished(holder);
+                    break;
+                case REMOVE:
+                    dispatchRemoveFinished(holder);
+                    break;
+                case MOVE:
+                    dispatchMoveFinished(holder);
+                    break;
+                case CHANGE_OLD:
+                case CHANGE_NEW:
+                    dispatchChangeFinished(holder, mType == CHANGE_OLD);
+                    break;
+            }
+        }
+    }
+}
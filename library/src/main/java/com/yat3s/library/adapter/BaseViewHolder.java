@@ -1,13 +1,18 @@
 package com.yat3s.library.adapter;
 
+import android.animation.Animator;
 import android.content.Context;
 import android.content.Intent;
 import android.graphics.Paint;
 import android.graphics.Typeface;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.RecyclerView;
+import android.text.TextUtils;
 import android.util.SparseArray;
+import android.util.TypedValue;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
@@ -19,17 +24,56 @@ import android.widget.TextView;
  */
 
 public class BaseViewHolder extends RecyclerView.ViewHolder {
-    private final SparseArray<View> mViews;
+    private static long sAppliedWriteCount, sSkippedWriteCount;
+
+    private SparseArray<View> mViews;
     private Context mContext;
+    private ViewIdIndex mViewIdIndex;
+    private View[] mIndexedViews;
+    // Last value set through this holder, keyed by view id, so binding same value is skipped
+    private IntIntMap mTextColors, mImageResources, mBackgroundColors;
+    // Adapter which bound click listeners to this holder
+    BaseAdapter mOwnerAdapter;
+    // View type given by the adapter, it differs from getItemViewType() in CompositeAdapter
+    int mViewType;
+    // Shared by holders of an adapter, holders created by yourself have their own
+    ResourceCache mResourceCache;
+    // Pending image requests keyed by view id
+    private SparseArray<ImageLoader.Request> mImageRequests;
+    // Running custom item animator, the built-in ones run on the item view's own animator
+    Animator mItemAnimator;
+    // Uptime the built-in bind animation ends, its view animator is shared with item animators
+    long mBindAnimationEndTime;
 
     public BaseViewHolder(View itemView, Context context) {
         super(itemView);
-        mViews = new SparseArray<>();
         mContext = context;
     }
 
+    /**
+     * Views with id are filled into slots of the layout's index at once, then
+     * {@link #getView(int)} is an array lookup.
+     */
+    BaseViewHolder(View itemView, Context context, ViewIdIndex viewIdIndex) {
+        this(itemView, context);
+        View[] views = new View[viewIdIndex.size()];
+        if (viewIdIndex.fill(itemView, views)) {
+            mViewIdIndex = viewIdIndex;
+            mIndexedViews = views;
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public <TView extends View> TView getView(int id) {
+        if (null != mViewIdIndex) {
+            int slot = mViewIdIndex.slotOf(id);
+            if (slot >= 0) {
+                return (TView) mIndexedViews[slot];
+            }
+        }
+        if (null == mViews) {
+            mViews = new SparseArray<>();
+        }
         View view = mViews.get(id);
         if (view == null) {
             view = itemView.findViewById(id);
@@ -38,37 +82,127 @@ public class BaseViewHolder extends RecyclerView.ViewHolder {
         return (TView) view;
     }
 
+    /**
+     * Skipped if the text view shows the same plain text, because setText requests layout.
+     * Text with spans on either side is always set, equal characters may differ in spans.
+     */
     public BaseViewHolder setText(int viewId, CharSequence value) {
         TextView view = getView(viewId);
+        if (value instanceof String && view.getText() instanceof String && TextUtils.equals(view
+                .getText(), value)) {
+            sSkippedWriteCount++;
+            return this;
+        }
         view.setText(value);
+        sAppliedWriteCount++;
         return this;
     }
 
+    /**
+     * Decodes on main thread, use {@link #setImageUri(int, Uri, int)} for large images.
+     */
     public BaseViewHolder setImageURI(int viewId, Uri uri) {
+        cancelImageRequest(viewId);
         ImageView view = getView(viewId);
         view.setImageURI(uri);
+        forget(mImageResources, viewId);
+        return this;
+    }
+
+    /**
+     * Loads a local image on background with {@link ImageLoader}, the request is cancelled
+     * when the view is set again or the holder is recycled.
+     *
+     * @param targetSize max size in px the image is downsampled to
+     */
+    public BaseViewHolder setImageUri(int viewId, Uri uri, int targetSize) {
+        cancelImageRequest(viewId);
+        ImageView view = getView(viewId);
+        forget(mImageResources, viewId);
+        ImageLoader.Request request = ImageLoader.getInstance(mContext).load(uri, targetSize,
+                view);
+        if (null != request) {
+            if (null == mImageRequests) {
+                mImageRequests = new SparseArray<>();
+            }
+            mImageRequests.put(viewId, request);
+        }
         return this;
     }
 
+    /**
+     * Downsamples to the bounds of the view, or the screen width if it is not laid out.
+     */
+    public BaseViewHolder setImageUri(int viewId, Uri uri) {
+        ImageView view = getView(viewId);
+        int targetSize = Math.max(view.getWidth(), view.getHeight());
+        if (targetSize <= 0) {
+            targetSize = mContext.getResources().getDisplayMetrics().widthPixels;
+        }
+        return setImageUri(viewId, uri, targetSize);
+    }
+
+    /**
+     * Skipped if the same color was set through this holder last time, so do not change the
+     * color of the view in other ways.
+     */
     public BaseViewHolder setTextColor(int viewId, int textColor) {
+        if (isSameValue(mTextColors, viewId, textColor)) {
+            return this;
+        }
+        mTextColors = remember(mTextColors, viewId, textColor);
         TextView view = getView(viewId);
         view.setTextColor(textColor);
         return this;
     }
 
     public BaseViewHolder setTextColorRes(int viewId, int textColorRes) {
+        return setTextColor(viewId, getResourceCache().getColor(textColorRes));
+    }
+
+    public BaseViewHolder setTextSizeRes(int viewId, int textSizeRes) {
         TextView view = getView(viewId);
-        view.setTextColor(mContext.getResources().getColor(textColorRes));
+        view.setTextSize(TypedValue.COMPLEX_UNIT_PX, getResourceCache().getDimension(textSizeRes));
+        return this;
+    }
+
+    public BaseViewHolder setBackgroundTintRes(int viewId, int tintColorRes) {
+        View view = getView(viewId);
+        ViewCompat.setBackgroundTintList(view, getResourceCache().getColorStateList
+                (tintColorRes));
         return this;
     }
 
+    public BaseViewHolder setImageDrawableRes(int viewId, int drawableRes) {
+        cancelImageRequest(viewId);
+        ImageView view = getView(viewId);
+        view.setImageDrawable(getResourceCache().getDrawable(drawableRes));
+        forget(mImageResources, viewId);
+        return this;
+    }
+
+    /**
+     * Skipped if the same image was set through this holder last time.
+     */
     public BaseViewHolder setImageResource(int viewId, int imageResId) {
+        cancelImageRequest(viewId);
+        if (isSameValue(mImageResources, viewId, imageResId)) {
+            return this;
+        }
+        mImageResources = remember(mImageResources, viewId, imageResId);
         ImageView view = getView(viewId);
         view.setImageResource(imageResId);
         return this;
     }
 
+    /**
+     * Skipped if the same color was set through this holder last time.
+     */
     public BaseViewHolder setBackgroundColor(int viewId, int color) {
+        if (isSameValue(mBackgroundColors, viewId, color)) {
+            return this;
+        }
+        mBackgroundColors = remember(mBackgroundColors, viewId, color);
         View view = getView(viewId);
         view.setBackgroundColor(color);
         return this;
@@ -77,12 +211,22 @@ public class BaseViewHolder extends RecyclerView.ViewHolder {
     public BaseViewHolder setBackgroundResource(int viewId, int backgroundRes) {
         View view = getView(viewId);
         view.setBackgroundResource(backgroundRes);
+        forget(mBackgroundColors, viewId);
         return this;
     }
 
+    /**
+     * Skipped if the view already has the visibility.
+     */
     public BaseViewHolder setVisible(int viewId, boolean visible) {
         View view = getView(viewId);
-        view.setVisibility(visible ? View.VISIBLE : View.GONE);
+        int visibility = visible ? View.VISIBLE : View.GONE;
+        if (view.getVisibility() == visibility) {
+            sSkippedWriteCount++;
+            return this;
+        }
+        view.setVisibility(visibility);
+        sAppliedWriteCount++;
         return this;
     }
 
@@ -95,6 +239,13 @@ public class BaseViewHolder extends RecyclerView.ViewHolder {
         return this;
     }
 
+    /**
+     * @param fontAssetPath path of the font in assets, the typeface is created once
+     */
+    public BaseViewHolder setTypeface(String fontAssetPath, int... viewIds) {
+        return setTypeface(getResourceCache().getTypeface(fontAssetPath), viewIds);
+    }
+
     public BaseViewHolder setOnClickListener(int viewId, View.OnClickListener listener) {
         View view = getView(viewId);
         view.setOnClickListener(listener);
@@ -132,4 +283,94 @@ public class BaseViewHolder extends RecyclerView.ViewHolder {
         startActivity(activity, null);
         return this;
     }
+
+    /**
+     * Called by {@link BaseAdapter} when the holder is recycled.
+     */
+    void cancelImageRequests() {
+        if (null == mImageRequests) {
+            return;
+        }
+        for (int i = 0; i < mImageRequests.size(); i++) {
+            mImageRequests.valueAt(i).cancel();
+        }
+        mImageRequests.clear();
+    }
+
+    /**
+     * Stops the item animation and puts the item view back to its rest state.
+     */
+    void resetItemAnimation() {
+        if (null != mItemAnimator) {
+            mItemAnimator.cancel();
+            mItemAnimator = null;
+        }
+        // Only cancel the bind animation, not the item animator's one that may run meanwhile
+        if (SystemClock.uptimeMillis() < mBindAnimationEndTime && isRecyclable()) {
+            AnimationUtil.reset(itemView);
+        }
+        mBindAnimationEndTime = 0;
+    }
+
+    private void cancelImageRequest(int viewId) {
+        if (null == mImageRequests) {
+            return;
+        }
+        ImageLoader.Request request = mImageRequests.get(viewId);
+        if (null != request) {
+            request.cancel();
+            mImageRequests.remove(viewId);
+        }
+    }
+
+    private ResourceCache getResourceCache() {
+        if (null == mResourceCache) {
+            mResourceCache = new ResourceCache(mContext);
+        }
+        return mResourceCache;
+    }
+
+    private static boolean isSameValue(IntIntMap lastValues, int viewId, int value) {
+        if (null != lastValues && lastValues.containsKey(viewId) && lastValues.get(viewId, 0) ==
+                value) {
+            sSkippedWriteCount++;
+            return true;
+        }
+        sAppliedWriteCount++;
+        return false;
+    }
+
+    private static IntIntMap remember(IntIntMap lastValues, int viewId, int value) {
+        if (null == lastValues) {
+            lastValues = new IntIntMap(4);
+        }
+        lastValues.put(viewId, value);
+        return lastValues;
+    }
+
+    private static void forget(IntIntMap lastValues, int viewId) {
+        if (null != lastValues) {
+            lastValues.remove(viewId);
+        }
+    }
+
+    /**
+     * Writes of setText, setTextColor, setImageResource, setBackgroundColor and setVisible
+     * which really changed a view, counted on main thread of all holders.
+     */
+    public static long getAppliedWriteCount() {
+        return sAppliedWriteCount;
+    }
+
+    /**
+     * Writes which were skipped because the view already had the value.
+     */
+    public static long getSkippedWriteCount() {
+        return sSkippedWriteCount;
+    }
+
+    public static void resetWriteCounts() {
+        sAppliedWriteCount = 0;
+        sSkippedWriteCount = 0;
+    }
 }
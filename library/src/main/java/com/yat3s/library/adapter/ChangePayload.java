@@ -0,0 +1,56 @@
+package com.yat3s.library.adapter;
+
+import java.util.List;
+
+/**
+ * A payload which tells which fields of an item changed, define each field as a bit flag,
+ * such as {@code FIELD_LIKE_COUNT = 1 << 0}.
+ */
+
+public final class ChangePayload {
+    public static final long ALL_FIELDS = -1L;
+
+    private final long mChangedFields;
+
+    public ChangePayload(long changedFields) {
+        mChangedFields = changedFields;
+    }
+
+    public long getChangedFields() {
+        return mChangedFields;
+    }
+
+    public boolean hasChanged(long field) {
+        return (mChangedFields & field) != 0;
+    }
+
+    public ChangePayload merge(ChangePayload other) {
+        return new ChangePayload(mChangedFields | other.mChangedFields);
+    }
+
+    /**
+     * Merges payloads passed to bindPartial, an unknown payload means all fields changed.
+     */
+    public static long getChangedFields(List<Object> payloads) {
+        long changedFields = 0;
+        for (Object payload : payloads) {
+            if (payload instanceof ChangePayload) {
+                changedFields |= ((ChangePayload) payload).mChangedFields;
+            } else {
+                return ALL_FIELDS;
+            }
+        }
+        return changedFields;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof ChangePayload && ((ChangePayload) o).mChangedFields ==
+                mChangedFields);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (mChangedFields ^ (mChangedFields >>> 32));
+    }
+}
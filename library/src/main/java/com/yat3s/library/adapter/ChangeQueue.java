@@ -0,0 +1,108 @@
+package com.yat3s.library.adapter;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Data changes posted from any thread, applied later on main thread in posted order.
+ * <p>
+ * Producers only append to a lock-free queue, so they never wait for each other or for main
+ * thread. A drain applies changes until its time budget is used up and leaves the rest for
+ * the next one. Only the producer which finds no drain scheduled has to schedule one.
+ */
+
+final class ChangeQueue<T> {
+    static final int APPEND = -1;
+    // Clock is read once every so many changes, most changes take far less than a read
+    private static final int CLOCK_CHECK_INTERVAL = 16;
+
+    private static final int INSERT = 0;
+    private static final int UPDATE = 1;
+    private static final int REMOVE = 2;
+
+    interface Target<T> {
+        int size();
+
+        void insert(int index, T item);
+
+        void update(int index, T item);
+
+        void remove(int index);
+    }
+
+    private final ConcurrentLinkedQueue<Change<T>> mChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean mDrainScheduled = new AtomicBoolean();
+
+    /**
+     * @param index insert position, or {@link #APPEND} to add after the last item when it is
+     *              applied
+     * @return true if the caller must schedule a drain.
+     */
+    boolean insert(int index, T item) {
+        return offer(new Change<>(INSERT, index, item));
+    }
+
+    boolean update(int index, T item) {
+        return offer(new Change<>(UPDATE, index, item));
+    }
+
+    boolean remove(int index) {
+        return offer(new Change<T>(REMOVE, index, null));
+    }
+
+    boolean isEmpty() {
+        return mChanges.isEmpty();
+    }
+
+    /**
+     * Applies changes in posted order, at least one, until the budget is used up.
+     *
+     * @return true if changes are left, the caller must schedule another drain.
+     */
+    boolean drain(Target<T> target, long budgetNanos) {
+        // Changes posted from now on schedule a new drain, a drain of nothing is cheap
+        mDrainScheduled.set(false);
+        long deadline = System.nanoTime() + budgetNanos;
+        int applied = 0;
+        Change<T> change;
+        while (null != (change = mChanges.poll())) {
+            apply(target, change);
+            if (++applied % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        return !mChanges.isEmpty() && mDrainScheduled.compareAndSet(false, true);
+    }
+
+    private boolean offer(Change<T> change) {
+        mChanges.offer(change);
+        return mDrainScheduled.compareAndSet(false, true);
+    }
+
+    private static <T> void apply(Target<T> target, Change<T> change) {
+        switch (change.mType) {
+            case INSERT:
+                target.insert(change.mIndex == APPEND ? target.size() : change.mIndex, change
+                        .mItem);
+                break;
+            case UPDATE:
+                target.update(change.mIndex, change.mItem);
+                break;
+            case REMOVE:
+                target.remove(change.mIndex);
+                break;
+        }
+    }
+
+    private static final class Change<T> {
+        final int mType;
+        final int mIndex;
+        final T mItem;
+
+        Change(int type, int index, T item) {
+            mType = type;
+            mIndex = index;
+            mItem = item;
+        }
+    }
+}
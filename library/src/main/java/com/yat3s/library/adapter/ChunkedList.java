@@ -0,0 +1,400 @@
+package com.yat3s.library.adapter;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A list stored as a B+ tree of small arrays, each node knows the item count under it.
+ * Positional get, set, insert and removal walk one path of the tree, which is O(log n), so
+ * inserting at the top of a huge list or moving an item does not shift the whole list like
+ * {@link java.util.ArrayList}. Appending fills the last leaf and keeps leaves full.
+ * <p>
+ * {@link #snapshot()} is O(1), the snapshot shares all nodes with the list. Each node knows
+ * the list version which owns it, nodes of an older version are shared, so an edit copies
+ * the shared nodes on its path instead of changing them. Edits without snapshots change
+ * nodes in place.
+ * <p>
+ * Give it to {@link BaseAdapter} as data when the list is huge and changes in the middle,
+ * such as a long chat history. For small lists ArrayList is faster.
+ */
+
+public final class ChunkedList<T> extends AbstractList<T> {
+    // Leaves and branches have the same capacity, 64 keeps a leaf in a few cache lines
+    static final int NODE_CAPACITY = 64;
+
+    private Node mRoot;
+    // Nodes owned by this token can be changed in place, null for a snapshot
+    private Object mOwner;
+
+    public ChunkedList() {
+        mOwner = new Object();
+        mRoot = new Leaf(mOwner);
+    }
+
+    public ChunkedList(Collection<? extends T> items) {
+        this();
+        addAll(items);
+    }
+
+    private ChunkedList(Node root) {
+        mRoot = root;
+    }
+
+    /**
+     * @return a read only list of the current items, it may be read on any thread while this
+     * list keeps changing on its thread.
+     */
+    public List<T> snapshot() {
+        if (null == mOwner) {
+            return this;
+        }
+        // Nodes of the snapshot are not owned by the new token, they are never changed again
+        mOwner = new Object();
+        return new ChunkedList<>(mRoot);
+    }
+
+    @Override
+    public int size() {
+        return mRoot.mSize;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        checkIndex(index, size());
+        Node node = mRoot;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int child = 0;
+            while (index >= branch.mChildren[child].mSize && child < branch.mChildCount - 1) {
+                index -= branch.mChildren[child++].mSize;
+            }
+            node = branch.mChildren[child];
+        }
+        return (T) ((Leaf) node).mItems[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int index, T item) {
+        checkMutable();
+        checkIndex(index, size());
+        mRoot = mRoot.editable(mOwner);
+        Node node = mRoot;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int child = branch.findChild(index);
+            index -= branch.offsetOf(child);
+            node = branch.editableChild(child, mOwner);
+        }
+        Object[] items = ((Leaf) node).mItems;
+        T oldItem = (T) items[index];
+        items[index] = item;
+        return oldItem;
+    }
+
+    @Override
+    public void add(int index, T item) {
+        checkMutable();
+        checkIndex(index, size() + 1);
+        mRoot = mRoot.editable(mOwner);
+        Node split = mRoot.insert(mOwner, index, item);
+        if (null != split) {
+            Branch root = new Branch(mOwner);
+            root.appendChild(mRoot);
+            root.appendChild(split);
+            mRoot = root;
+        }
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove(int index) {
+        checkMutable();
+        checkIndex(index, size());
+        mRoot = mRoot.editable(mOwner);
+        T item = (T) mRoot.remove(mOwner, index);
+        if (mRoot instanceof Branch && ((Branch) mRoot).mChildCount == 1) {
+            mRoot = ((Branch) mRoot).mChildren[0];
+        }
+        modCount++;
+        return item;
+    }
+
+    /**
+     * Moves the item at from index to to index, both are positions before the move.
+     */
+    public void move(int fromIndex, int toIndex) {
+        add(toIndex, remove(fromIndex));
+    }
+
+    @Override
+    public void clear() {
+        checkMutable();
+        mRoot = new Leaf(mOwner);
+        modCount++;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            remove(fromIndex);
+        }
+    }
+
+    /**
+     * @return height of the tree, a single leaf is 1.
+     */
+    int height() {
+        int height = 1;
+        for (Node node = mRoot; node instanceof Branch; node = ((Branch) node).mChildren[0]) {
+            height++;
+        }
+        return height;
+    }
+
+    private void checkMutable() {
+        if (null == mOwner) {
+            throw new UnsupportedOperationException("Snapshot is read only");
+        }
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index " + index + ", bound " + bound);
+        }
+    }
+
+    /**
+     * Only nodes returned by {@link #editable(Object)} are changed, their parents already
+     * point to them.
+     */
+    private abstract static class Node {
+        final Object mOwner;
+        // Item count under this node
+        int mSize;
+
+        Node(Object owner) {
+            mOwner = owner;
+        }
+
+        /**
+         * @return this node if the owner owns it, or a copy owned by the owner.
+         */
+        abstract Node editable(Object owner);
+
+        /**
+         * @return the new right sibling if this node was split, or null.
+         */
+        abstract Node insert(Object owner, int index, Object item);
+
+        abstract Object remove(Object owner, int index);
+
+        abstract int count();
+
+        /**
+         * Moves all items or children of the right sibling into this node.
+         */
+        abstract void merge(Node right);
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] mItems = new Object[NODE_CAPACITY];
+
+        Leaf(Object owner) {
+            super(owner);
+        }
+
+        @Override
+        Node editable(Object owner) {
+            if (mOwner == owner) {
+                return this;
+            }
+            Leaf copy = new Leaf(owner);
+            System.arraycopy(mItems, 0, copy.mItems, 0, mSize);
+            copy.mSize = mSize;
+            return copy;
+        }
+
+        @Override
+        Node insert(Object owner, int index, Object item) {
+            if (mSize < NODE_CAPACITY) {
+                System.arraycopy(mItems, index, mItems, index + 1, mSize - index);
+                mItems[index] = item;
+                mSize++;
+                return null;
+            }
+            // Appending keeps this leaf full, otherwise each half gets half of the items
+            int splitAt = index == NODE_CAPACITY ? NODE_CAPACITY : NODE_CAPACITY / 2;
+            Leaf right = new Leaf(owner);
+            right.mSize = NODE_CAPACITY - splitAt;
+            System.arraycopy(mItems, splitAt, right.mItems, 0, right.mSize);
+            Arrays.fill(mItems, splitAt, NODE_CAPACITY, null);
+            mSize = splitAt;
+            if (index <= splitAt && index < NODE_CAPACITY) {
+                insert(owner, index, item);
+            } else {
+                right.insert(owner, index - splitAt, item);
+            }
+            return right;
+        }
+
+        @Override
+        Object remove(Object owner, int index) {
+            Object item = mItems[index];
+            System.arraycopy(mItems, index + 1, mItems, index, mSize - index - 1);
+            mItems[--mSize] = null;
+            return item;
+        }
+
+        @Override
+        int count() {
+            return mSize;
+        }
+
+        @Override
+        void merge(Node right) {
+            Leaf leaf = (Leaf) right;
+            System.arraycopy(leaf.mItems, 0, mItems, mSize, leaf.mSize);
+            mSize += leaf.mSize;
+        }
+    }
+
+    private static final class Branch extends Node {
+        final Node[] mChildren = new Node[NODE_CAPACITY];
+        int mChildCount;
+
+        Branch(Object owner) {
+            super(owner);
+        }
+
+        /**
+         * @return child holding the index, an index past the end goes to the last child.
+         */
+        int findChild(int index) {
+            int last = mChildCount - 1;
+            for (int i = 0; i < last; i++) {
+                index -= mChildren[i].mSize;
+                if (index < 0) {
+                    return i;
+                }
+            }
+            return last;
+        }
+
+        int offsetOf(int child) {
+            int offset = 0;
+            for (int i = 0; i < child; i++) {
+                offset += mChildren[i].mSize;
+            }
+            return offset;
+        }
+
+        Node editableChild(int child, Object owner) {
+            return mChildren[child] = mChildren[child].editable(owner);
+        }
+
+        void appendChild(Node child) {
+            mChildren[mChildCount++] = child;
+            mSize += child.mSize;
+        }
+
+        @Override
+        Node editable(Object owner) {
+            if (mOwner == owner) {
+                return this;
+            }
+            // Children stay shared until an edit reaches them
+            Branch copy = new Branch(owner);
+            System.arraycopy(mChildren, 0, copy.mChildren, 0, mChildCount);
+            copy.mChildCount = mChildCount;
+            copy.mSize = mSize;
+            return copy;
+        }
+
+        @Override
+        Node insert(Object owner, int index, Object item) {
+            int child = findChild(index);
+            Node split = editableChild(child, owner).insert(owner, index - offsetOf(child), item);
+            mSize++;
+            if (null == split) {
+                return null;
+            }
+            if (mChildCount < NODE_CAPACITY) {
+                insertChild(child + 1, split);
+                return null;
+            }
+            // Same as leaf, a split at the end keeps this branch full
+            int splitAt = child == NODE_CAPACITY - 1 ? NODE_CAPACITY : NODE_CAPACITY / 2;
+            Branch right = new Branch(owner);
+            for (int i = splitAt; i < NODE_CAPACITY; i++) {
+                right.appendChild(mChildren[i]);
+                mSize -= mChildren[i].mSize;
+                mChildren[i] = null;
+            }
+            mChildCount = splitAt;
+            // The split child is not counted in either half yet
+            mSize -= split.mSize;
+            if (child + 1 < splitAt) {
+                insertChild(child + 1, split);
+                mSize += split.mSize;
+            } else {
+                right.insertChild(child + 1 - splitAt, split);
+                right.mSize += split.mSize;
+            }
+            return right;
+        }
+
+        /**
+         * Inserts a child split from an existing one, its items are already counted.
+         */
+        private void insertChild(int index, Node child) {
+            System.arraycopy(mChildren, index, mChildren, index + 1, mChildCount - index);
+            mChildren[index] = child;
+            mChildCount++;
+        }
+
+        @Override
+        Object remove(Object owner, int index) {
+            int child = findChild(index);
+            Node node = editableChild(child, owner);
+            Object item = node.remove(owner, index - offsetOf(child));
+            mSize--;
+            if (node.count() == 0) {
+                removeChild(child);
+            } else if (child + 1 < mChildCount && node.count() + mChildren[child + 1].count()
+                    <= NODE_CAPACITY) {
+                // Two neighbours always hold more than a node, so nodes stay half full on
+                // average
+                node.merge(mChildren[child + 1]);
+                removeChild(child + 1);
+            } else if (child > 0 && node.count() + mChildren[child - 1].count() <=
+                    NODE_CAPACITY) {
+                editableChild(child - 1, owner).merge(node);
+                removeChild(child);
+            }
+            return item;
+        }
+
+        private void removeChild(int index) {
+            System.arraycopy(mChildren, index + 1, mChildren, index, mChildCount - index - 1);
+            mChildren[--mChildCount] = null;
+        }
+
+        @Override
+        int count() {
+            return mChildCount;
+        }
+
+        @Override
+        void merge(Node right) {
+            Branch branch = (Branch) right;
+            for (int i = 0; i < branch.mChildCount; i++) {
+                appendChild(branch.mChildren[i]);
+            }
+        }
+    }
+}
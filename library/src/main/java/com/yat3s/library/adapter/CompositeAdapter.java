@@ -0,0 +1,393 @@
+package com.yat3s.library.adapter;
+
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows header views, child adapters and footer views one after another in one recycler
+ * view, such as pinned promos + feed + suggestions.
+ * <p>
+ * Start positions of the segments are kept in a prefix offset array, a position is resolved
+ * to its segment by binary search. View types of segments are mapped to their own global
+ * types, so two adapters never share holders by accident. Notifications of a child adapter
+ * are forwarded as range notifications shifted by the offset of its segment.
+ * <p>
+ * With {@link #setHasStableIds(boolean)} on, ids of each segment are mapped to ids of its own
+ * range, so equal ids of two adapters never collide. Adapters without stable ids give ids by
+ * position. The mapping keeps every id a segment has given, until the segment is removed.
+ */
+
+public class CompositeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+    private final List<Segment> mSegments = new ArrayList<>();
+    // Offset of each segment, the last one is the item count
+    private int[] mOffsets = new int[1];
+    private int mHeaderCount, mFooterCount;
+    // Global view type is the index, it is never reused
+    private final List<Segment> mTypeSegments = new ArrayList<>();
+    private final SparseIntArray mLocalTypes = new SparseIntArray();
+    // Id range of each segment, it is never reused
+    private int mNextSegmentSerial;
+    private RecyclerView mRecyclerView;
+
+    /**
+     * Composite api
+     */
+    public void addHeaderView(View headerView) {
+        addSegment(mHeaderCount++, new SingleViewAdapter(headerView));
+    }
+
+    public void addFooterView(View footerView) {
+        mFooterCount++;
+        addSegment(mSegments.size(), new SingleViewAdapter(footerView));
+    }
+
+    /**
+     * Adds the adapter after the other adapters, before the footers.
+     */
+    public void addAdapter(RecyclerView.Adapter adapter) {
+        addSegment(mSegments.size() - mFooterCount, adapter);
+    }
+
+    public void removeHeaderView(View headerView) {
+        for (int i = 0; i < mHeaderCount; i++) {
+            if (((SingleViewAdapter) mSegments.get(i).mAdapter).mView == headerView) {
+                mHeaderCount--;
+                removeSegment(i);
+                return;
+            }
+        }
+    }
+
+    public void removeFooterView(View footerView) {
+        for (int i = mSegments.size() - mFooterCount; i < mSegments.size(); i++) {
+            if (((SingleViewAdapter) mSegments.get(i).mAdapter).mView == footerView) {
+                mFooterCount--;
+                removeSegment(i);
+                return;
+            }
+        }
+    }
+
+    public void removeAdapter(RecyclerView.Adapter adapter) {
+        for (int i = mHeaderCount; i < mSegments.size() - mFooterCount; i++) {
+            if (mSegments.get(i).mAdapter == adapter) {
+                removeSegment(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return position in the child adapter, or {@link RecyclerView#NO_POSITION} if the
+     * position is not in it.
+     */
+    public int getLocalPosition(RecyclerView.Adapter adapter, int position) {
+        int segmentIndex = indexOfAdapter(adapter);
+        if (segmentIndex < 0 || position < mOffsets[segmentIndex] || position >=
+                mOffsets[segmentIndex + 1]) {
+            return RecyclerView.NO_POSITION;
+        }
+        return position - mOffsets[segmentIndex];
+    }
+
+    /**
+     * @return position in this adapter of the position in the child adapter.
+     */
+    public int getGlobalPosition(RecyclerView.Adapter adapter, int localPosition) {
+        int segmentIndex = indexOfAdapter(adapter);
+        if (segmentIndex < 0) {
+            throw new IllegalArgumentException("Adapter is not added!");
+        }
+        return mOffsets[segmentIndex] + localPosition;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mOffsets[mSegments.size()];
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        Segment segment = mSegments.get(findSegment(position));
+        int localType = segment.mAdapter.getItemViewType(position - segment.getOffset());
+        int globalType = segment.mGlobalTypes.get(localType, -1);
+        if (globalType < 0) {
+            globalType = mTypeSegments.size();
+            mTypeSegments.add(segment);
+            mLocalTypes.put(globalType, localType);
+            segment.mGlobalTypes.put(localType, globalType);
+        }
+        return globalType;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        Segment segment = mSegments.get(findSegment(position));
+        int localPosition = position - segment.getOffset();
+        return segment.getGlobalId(segment.mAdapter.hasStableIds() ? segment.mAdapter
+                .getItemId(localPosition) : localPosition);
+    }
+
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        return mTypeSegments.get(viewType).mAdapter.onCreateViewHolder(parent, mLocalTypes.get
+                (viewType));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        Segment segment = mSegments.get(findSegment(position));
+        segment.mAdapter.onBindViewHolder(holder, position - segment.getOffset());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position, List<Object>
+            payloads) {
+        Segment segment = mSegments.get(findSegment(position));
+        segment.mAdapter.onBindViewHolder(holder, position - segment.getOffset(), payloads);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onViewRecycled(RecyclerView.ViewHolder holder) {
+        mTypeSegments.get(holder.getItemViewType()).mAdapter.onViewRecycled(holder);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean onFailedToRecycleView(RecyclerView.ViewHolder holder) {
+        return mTypeSegments.get(holder.getItemViewType()).mAdapter.onFailedToRecycleView
+                (holder);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onViewAttachedToWindow(RecyclerView.ViewHolder holder) {
+        mTypeSegments.get(holder.getItemViewType()).mAdapter.onViewAttachedToWindow(holder);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onViewDetachedFromWindow(RecyclerView.ViewHolder holder) {
+        mTypeSegments.get(holder.getItemViewType()).mAdapter.onViewDetachedFromWindow(holder);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+        for (int i = 0; i < mSegments.size(); i++) {
+            mSegments.get(i).mAdapter.onAttachedToRecyclerView(recyclerView);
+        }
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        for (int i = 0; i < mSegments.size(); i++) {
+            mSegments.get(i).mAdapter.onDetachedFromRecyclerView(recyclerView);
+        }
+        mRecyclerView = null;
+    }
+
+    /**
+     * @return index of the segment which holds the position.
+     */
+    private int findSegment(int position) {
+        if (position < 0 || position >= getItemCount()) {
+            throw new IndexOutOfBoundsException("Position " + position + ", item count " +
+                    getItemCount());
+        }
+        // The last segment starting at or before position, empty segments start at the same
+        // offset as the next one so they are never picked
+        int low = 0, high = mSegments.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (mOffsets[mid] <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private int indexOfAdapter(RecyclerView.Adapter adapter) {
+        for (int i = 0; i < mSegments.size(); i++) {
+            if (mSegments.get(i).mAdapter == adapter) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void addSegment(int index, RecyclerView.Adapter adapter) {
+        if (indexOfAdapter(adapter) >= 0) {
+            throw new IllegalArgumentException("Adapter is already added!");
+        }
+        Segment segment = new Segment(adapter, mNextSegmentSerial++);
+        mSegments.add(index, segment);
+        rebuildOffsets();
+        adapter.registerAdapterDataObserver(segment);
+        if (adapter instanceof BaseAdapter) {
+            ((BaseAdapter) adapter).mParentAdapter = this;
+        }
+        if (null != mRecyclerView) {
+            adapter.onAttachedToRecyclerView(mRecyclerView);
+        }
+        if (segment.mItemCount > 0) {
+            notifyItemRangeInserted(mOffsets[index], segment.mItemCount);
+        }
+    }
+
+    private void removeSegment(int index) {
+        Segment segment = mSegments.remove(index);
+        int offset = mOffsets[index];
+        rebuildOffsets();
+        segment.mAdapter.unregisterAdapterDataObserver(segment);
+        if (segment.mAdapter instanceof BaseAdapter) {
+            ((BaseAdapter) segment.mAdapter).mParentAdapter = null;
+        }
+        if (null != mRecyclerView) {
+            segment.mAdapter.onDetachedFromRecyclerView(mRecyclerView);
+        }
+        if (segment.mItemCount > 0) {
+            notifyItemRangeRemoved(offset, segment.mItemCount);
+        }
+    }
+
+    private void rebuildOffsets() {
+        mOffsets = new int[mSegments.size() + 1];
+        for (int i = 0; i < mSegments.size(); i++) {
+            Segment segment = mSegments.get(i);
+            segment.mIndex = i;
+            mOffsets[i + 1] = mOffsets[i] + segment.mItemCount;
+        }
+    }
+
+    /**
+     * Item count of a segment changed, only the offsets after it move.
+     */
+    private void shiftOffsets(Segment segment, int delta) {
+        segment.mItemCount += delta;
+        for (int i = segment.mIndex + 1; i < mOffsets.length; i++) {
+            mOffsets[i] += delta;
+        }
+    }
+
+    /**
+     * A child adapter and its place, it forwards the notifications of the adapter.
+     */
+    private class Segment extends RecyclerView.AdapterDataObserver {
+        final RecyclerView.Adapter mAdapter;
+        final SparseIntArray mGlobalTypes = new SparseIntArray();
+        // Global ids are the serial in the high half and the order an id is seen in the low
+        final long mIdBase;
+        private LongIntMap mLocalIds;
+        int mIndex;
+        // Item count of the adapter as last notified
+        int mItemCount;
+
+        Segment(RecyclerView.Adapter adapter, int serial) {
+            mAdapter = adapter;
+            mIdBase = (long) serial << 32;
+            mItemCount = adapter.getItemCount();
+        }
+
+        int getOffset() {
+            return mOffsets[mIndex];
+        }
+
+        long getGlobalId(long localId) {
+            if (null == mLocalIds) {
+                mLocalIds = new LongIntMap(mItemCount);
+            }
+            int sequence = mLocalIds.get(localId, -1);
+            if (sequence < 0) {
+                sequence = mLocalIds.size();
+                mLocalIds.put(localId, sequence);
+            }
+            return mIdBase | sequence;
+        }
+
+        @Override
+        public void onChanged() {
+            // Rebind what is shared and insert or remove the difference, the rest of the
+            // list is not refreshed
+            int oldCount = mItemCount;
+            int newCount = mAdapter.getItemCount();
+            shiftOffsets(this, newCount - oldCount);
+            int offset = getOffset();
+            if (Math.min(oldCount, newCount) > 0) {
+                notifyItemRangeChanged(offset, Math.min(oldCount, newCount));
+            }
+            if (newCount > oldCount) {
+                notifyItemRangeInserted(offset + oldCount, newCount - oldCount);
+            } else if (newCount < oldCount) {
+                notifyItemRangeRemoved(offset + newCount, oldCount - newCount);
+            }
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            notifyItemRangeChanged(getOffset() + positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            notifyItemRangeChanged(getOffset() + positionStart, itemCount, payload);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            shiftOffsets(this, itemCount);
+            notifyItemRangeInserted(getOffset() + positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            shiftOffsets(this, -itemCount);
+            notifyItemRangeRemoved(getOffset() + positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            for (int i = 0; i < itemCount; i++) {
+                notifyItemMoved(getOffset() + fromPosition + i, getOffset() + toPosition + i);
+            }
+        }
+    }
+
+    /**
+     * Adapter of one header or footer view.
+     */
+    private static class SingleViewAdapter extends RecyclerView.Adapter<RecyclerView
+            .ViewHolder> {
+        final View mView;
+
+        SingleViewAdapter(View view) {
+            mView = view;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new RecyclerView.ViewHolder(mView) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            // Do nothing
+        }
+
+        @Override
+        public int getItemCount() {
+            return 1;
+        }
+    }
+}
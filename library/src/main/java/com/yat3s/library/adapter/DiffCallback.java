@@ -0,0 +1,31 @@
+package com.yat3s.library.adapter;
+
+/**
+ * Tells {@link ListDiffer} how to compare two items, it is called on the diff thread.
+ */
+
+public abstract class DiffCallback<T> {
+
+    /**
+     * @return true if the two items represent the same entity, such as same id.
+     */
+    public abstract boolean areItemsTheSame(T oldItem, T newItem);
+
+    /**
+     * Only called when {@link #areItemsTheSame(Object, Object)} returned true.
+     *
+     * @return true if the item's visual content did not change.
+     */
+    public abstract boolean areContentsTheSame(T oldItem, T newItem);
+
+    /**
+     * Only called when {@link #areItemsTheSame(Object, Object)} returned true and
+     * {@link #areContentsTheSame(Object, Object)} returned false.
+     *
+     * @return payload passed to bindPartial, such as a {@link ChangePayload}. Null means the
+     * item is fully bound again.
+     */
+    public Object getChangePayload(T oldItem, T newItem) {
+        return null;
+    }
+}
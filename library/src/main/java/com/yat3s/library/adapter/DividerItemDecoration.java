@@ -3,33 +3,71 @@ package com.yat3s.library.adapter;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
+import android.graphics.Paint;
 import android.graphics.Rect;
+import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.support.annotation.DimenRes;
 import android.support.annotation.DrawableRes;
 import android.support.v7.widget.RecyclerView;
+import android.util.SparseBooleanArray;
 import android.view.View;
 
+import java.util.Arrays;
+
 /**
  * Created by Yat3s on 10/28/15.
  * Email: yat3s@opentown.cn
  * Copyright (c) 2015 opentown. All rights reserved.
+ * <p>
+ * Solid color dividers are collected into one line array and drawn with a single
+ * {@link Canvas#drawLines(float[], int, int, Paint)}, the lines are kept until a child moves.
+ * Rows of {@link BaseAdapter} header, loading view and empty view get no divider.
  */
 
 public class DividerItemDecoration extends RecyclerView.ItemDecoration {
 
     private static final int[] ATTRS = {android.R.attr.listDivider};
+    // Frame key slots before the children: child count, clip bounds, parent size and padding
+    private static final int FRAME_KEY_HEADER = 11;
 
     private Drawable divider;
     private int insets;
     private Context context;
+    private ResourceCache resourceCache;
     private boolean addInsets = false;
 
+    // Solid color mode, used when thickness is set
+    private Paint solidPaint;
+    private int solidThickness;
+    // Per view type rules, types not in it get divider
+    private final SparseBooleanArray viewTypeRules = new SparseBooleanArray();
+    // Lines drawn last frame, 4 floats per line
+    private float[] lines = new float[64];
+    private int lineCount;
+    // What the lines were computed from, they are reused while it does not change
+    private int[] cacheKey = new int[0];
+    private int[] frameKey = new int[0];
+    private boolean cacheValid;
+    private final Rect clipBounds = new Rect();
+    private final Rect dividerBounds = new Rect();
+
     public DividerItemDecoration(Context context, Drawable divider) {
         this.context = context;
         this.divider = divider;
     }
 
+    /**
+     * Draws solid color dividers, it is the fastest mode.
+     *
+     * @param thickness thickness in px of both horizontal and vertical dividers
+     */
+    public DividerItemDecoration(Context context, int color, int thickness) {
+        this.context = context;
+        this.divider = new ColorDrawable(color);
+        setSolidColor(color, thickness);
+    }
+
     public DividerItemDecoration(Context context) {
         this.context = context;
         TypedArray a = context.obtainStyledAttributes(ATTRS);
@@ -38,67 +76,249 @@ public class DividerItemDecoration extends RecyclerView.ItemDecoration {
     }
 
     public void setDivider(@DrawableRes int dividerDrawableRes) {
-        divider = context.getResources().getDrawable(dividerDrawableRes);
+        divider = getResourceCache().getDrawable(dividerDrawableRes);
+        solidPaint = null;
+        cacheValid = false;
+    }
+
+    public void setSolidColor(int color, int thickness) {
+        solidPaint = new Paint();
+        solidPaint.setColor(color);
+        solidPaint.setStrokeWidth(thickness);
+        solidThickness = thickness;
+        cacheValid = false;
+    }
+
+    /**
+     * Turns dividers of a view type on or off, header, loading view and empty view of
+     * {@link BaseAdapter} are off by default.
+     * <p>
+     * Rows of {@link BaseAdapter} are matched by its own view type, which is
+     * {@link ViewTypeRegistry#getViewType(int)} of the item layout, also inside a
+     * {@link CompositeAdapter}. Rows of other adapters in a composite are matched by the view
+     * type of the composite, which has no fixed meaning.
+     */
+    public void setDrawDivider(int viewType, boolean drawDivider) {
+        viewTypeRules.put(viewType, drawDivider);
+        cacheValid = false;
     }
 
     public void setInsets(@DimenRes int insets) {
         addInsets = true;
-        this.insets = context.getResources().getDimensionPixelSize(insets);
+        this.insets = getResourceCache().getDimensionPixelSize(insets);
     }
 
     @Override
     public void onDrawOver(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
-        drawHorizontal(canvas, parent);
-        drawToTheRightOfEachChildren(canvas, parent);
+        int childCount = parent.getChildCount();
+        if (childCount == 0) return;
+        canvas.getClipBounds(clipBounds);
+        if (null != solidPaint) {
+            if (!isCacheValid(parent)) {
+                collectLines(parent, true, true);
+            }
+            if (lineCount > 0) {
+                canvas.drawLines(lines, 0, lineCount * 4, solidPaint);
+            }
+        } else {
+            drawDividers(canvas, parent, true, true);
+        }
     }
 
+    /**
+     * Draws only the dividers below children, with the same view type rules and clipping as
+     * {@link #onDrawOver(Canvas, RecyclerView, RecyclerView.State)}.
+     */
     public void drawHorizontal(Canvas c, RecyclerView parent) {
+        drawEdges(c, parent, true, false);
+    }
+
+    /**
+     * Draws only the dividers to the right of children, see {@link #drawHorizontal(Canvas,
+     * RecyclerView)}.
+     */
+    public void drawToTheRightOfEachChildren(Canvas c, RecyclerView parent) {
+        drawEdges(c, parent, false, true);
+    }
+
+    private void drawEdges(Canvas c, RecyclerView parent, boolean horizontal, boolean
+            vertical) {
+        if (parent.getChildCount() == 0) return;
+        c.getClipBounds(clipBounds);
+        if (null != solidPaint) {
+            collectLines(parent, horizontal, vertical);
+            // The lines no longer hold both dividers of the frame
+            cacheValid = false;
+            if (lineCount > 0) {
+                c.drawLines(lines, 0, lineCount * 4, solidPaint);
+            }
+        } else {
+            drawDividers(c, parent, horizontal, vertical);
+        }
+    }
+
+    /**
+     * Dividers of each child in one pass, children out of clip are skipped.
+     */
+    private void drawDividers(Canvas c, RecyclerView parent, boolean horizontal, boolean
+            vertical) {
+        int dividerHeight = divider.getIntrinsicHeight();
+        int dividerWidth = divider.getIntrinsicWidth();
         int childCount = parent.getChildCount();
-        if (childCount == 0) return;
-        int left, top, right, bottom;
-        View currentChild;
         for (int i = 0; i < childCount; i++) {
-            currentChild = parent.getChildAt(i);
-            int currentChildBottom = currentChild.getBottom();
-            if (currentChildBottom > parent.getPaddingTop() && currentChildBottom < parent.getBottom() - parent.getPaddingBottom()) {
-                left = currentChild.getLeft();
-                right = currentChild.getRight();
-                top = currentChildBottom;
-                bottom = top + divider.getIntrinsicHeight();
-                divider.setBounds(left, top, right, bottom);
+            View child = parent.getChildAt(i);
+            if (!isVisibleInClip(child, dividerWidth, dividerHeight) || !shouldDrawDivider
+                    (parent, child)) {
+                continue;
+            }
+            if (horizontal && getHorizontalBounds(parent, child, dividerHeight,
+                    dividerBounds)) {
+                divider.setBounds(dividerBounds.left, dividerBounds.top, dividerBounds.right,
+                        dividerBounds.bottom);
+                divider.draw(c);
+            }
+            if (vertical && getVerticalBounds(parent, child, dividerWidth, dividerHeight,
+                    dividerBounds)) {
+                divider.setBounds(dividerBounds.left, dividerBounds.top, dividerBounds.right,
+                        dividerBounds.bottom);
                 divider.draw(c);
             }
         }
     }
 
-    public void drawToTheRightOfEachChildren(Canvas c, RecyclerView parent) {
-        if (parent.getChildCount() == 0) return;
-        int top, left, right, bottom;
+    private void collectLines(RecyclerView parent, boolean horizontal, boolean vertical) {
+        lineCount = 0;
+        float halfThickness = solidThickness / 2f;
         int childCount = parent.getChildCount();
-        View currentChild;
         for (int i = 0; i < childCount; i++) {
-            currentChild = parent.getChildAt(i);
-            int offset = 2;
-            if (currentChild.getRight() < parent.getRight() - parent.getPaddingRight() - offset) {
-                //Avoid drawing over top padding
-                top = currentChild.getTop();
-                if (top < parent.getPaddingTop()) {
-                    top = parent.getPaddingTop();
-                }
-                bottom = currentChild.getBottom() + divider.getIntrinsicHeight();
-                //Avoid drawing over bottom padding
-                int parentBottom = parent.getBottom() - parent.getPaddingBottom();
-                if (bottom > parentBottom) {
-                    bottom = parentBottom;
-                }
-                left = currentChild.getRight();
-                right = left + divider.getIntrinsicWidth();
-                divider.setBounds(left, top, right, bottom);
-                divider.draw(c);
+            View child = parent.getChildAt(i);
+            if (!isVisibleInClip(child, solidThickness, solidThickness) || !shouldDrawDivider
+                    (parent, child)) {
+                continue;
+            }
+            // A line is stroked around its center, so it is moved by half thickness
+            if (horizontal && getHorizontalBounds(parent, child, solidThickness,
+                    dividerBounds)) {
+                addLine(dividerBounds.left, dividerBounds.top + halfThickness,
+                        dividerBounds.right, dividerBounds.top + halfThickness);
+            }
+            if (vertical && getVerticalBounds(parent, child, solidThickness, solidThickness,
+                    dividerBounds)) {
+                addLine(dividerBounds.left + halfThickness, dividerBounds.top, dividerBounds
+                        .left + halfThickness, dividerBounds.bottom);
             }
         }
     }
 
+    private void addLine(float startX, float startY, float stopX, float stopY) {
+        int index = lineCount * 4;
+        if (index + 4 > lines.length) {
+            lines = Arrays.copyOf(lines, lines.length * 2);
+        }
+        lines[index] = startX;
+        lines[index + 1] = startY;
+        lines[index + 2] = stopX;
+        lines[index + 3] = stopY;
+        lineCount++;
+    }
+
+    /**
+     * Compares the clip, the parent and the bounds and types of children with last frame, and
+     * remembers them for next frame.
+     */
+    private boolean isCacheValid(RecyclerView parent) {
+        int childCount = parent.getChildCount();
+        int size = FRAME_KEY_HEADER + childCount * 5;
+        if (frameKey.length < size) {
+            frameKey = new int[size * 2];
+        }
+        frameKey[0] = childCount;
+        frameKey[1] = clipBounds.left;
+        frameKey[2] = clipBounds.top;
+        frameKey[3] = clipBounds.right;
+        frameKey[4] = clipBounds.bottom;
+        frameKey[5] = parent.getRight();
+        frameKey[6] = parent.getBottom();
+        frameKey[7] = parent.getPaddingTop();
+        frameKey[8] = parent.getPaddingBottom();
+        frameKey[9] = parent.getPaddingLeft();
+        frameKey[10] = parent.getPaddingRight();
+        for (int i = 0; i < childCount; i++) {
+            View child = parent.getChildAt(i);
+            int index = FRAME_KEY_HEADER + i * 5;
+            frameKey[index] = child.getLeft();
+            frameKey[index + 1] = child.getTop();
+            frameKey[index + 2] = child.getRight();
+            frameKey[index + 3] = child.getBottom();
+            frameKey[index + 4] = getRuleViewType(parent.getChildViewHolder(child));
+        }
+        boolean valid = cacheValid && cacheKey.length >= size;
+        for (int i = 0; valid && i < size; i++) {
+            valid = cacheKey[i] == frameKey[i];
+        }
+        // Swap, so the key of this frame is kept without copying
+        int[] key = cacheKey;
+        cacheKey = frameKey;
+        frameKey = key;
+        cacheValid = true;
+        return valid;
+    }
+
+    private boolean isVisibleInClip(View child, int dividerWidth, int dividerHeight) {
+        return child.getBottom() + Math.max(0, dividerHeight) >= clipBounds.top && child.getTop()
+                <= clipBounds.bottom && child.getRight() + Math.max(0, dividerWidth) >=
+                clipBounds.left && child.getLeft() <= clipBounds.right;
+    }
+
+    private boolean shouldDrawDivider(RecyclerView parent, View child) {
+        RecyclerView.ViewHolder holder = parent.getChildViewHolder(child);
+        int viewType = getRuleViewType(holder);
+        return viewTypeRules.get(viewType, !(holder instanceof BaseViewHolder && BaseAdapter
+                .isPseudoViewType(viewType)));
+    }
+
+    /**
+     * Holders of BaseAdapter know their own view type, also inside CompositeAdapter.
+     */
+    private static int getRuleViewType(RecyclerView.ViewHolder holder) {
+        return holder instanceof BaseViewHolder ? ((BaseViewHolder) holder).mViewType : holder
+                .getItemViewType();
+    }
+
+    private boolean getHorizontalBounds(RecyclerView parent, View child, int dividerHeight,
+                                        Rect outBounds) {
+        int childBottom = child.getBottom();
+        if (childBottom > parent.getPaddingTop() && childBottom < parent.getBottom() - parent
+                .getPaddingBottom()) {
+            outBounds.set(child.getLeft(), childBottom, child.getRight(), childBottom +
+                    dividerHeight);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean getVerticalBounds(RecyclerView parent, View child, int dividerWidth, int
+            dividerHeight, Rect outBounds) {
+        int offset = 2;
+        if (child.getRight() < parent.getRight() - parent.getPaddingRight() - offset) {
+            //Avoid drawing over top padding
+            int top = Math.max(child.getTop(), parent.getPaddingTop());
+            //Avoid drawing over bottom padding
+            int bottom = Math.min(child.getBottom() + dividerHeight, parent.getBottom() - parent
+                    .getPaddingBottom());
+            outBounds.set(child.getRight(), top, child.getRight() + dividerWidth, bottom);
+            return true;
+        }
+        return false;
+    }
+
+    private ResourceCache getResourceCache() {
+        if (null == resourceCache) {
+            resourceCache = new ResourceCache(context);
+        }
+        return resourceCache;
+    }
+
     @Override
     public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
         //We can supply forced insets for each item view here in the Rect
@@ -0,0 +1,178 @@
+package com.yat3s.library.adapter;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads local images, such as file:// and content:// uri, into image views. Bitmaps are
+ * decoded on a bounded background pool, downsampled to the target size and kept in a memory
+ * cache sized by bytes.
+ */
+
+public class ImageLoader {
+    private static final String TAG = "ImageLoader";
+    private static final int DECODE_THREAD_COUNT = 2;
+
+    private static ImageLoader sInstance;
+
+    private final ContentResolver mContentResolver;
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private final ExecutorService mDecodeExecutor;
+    private final Handler mMainHandler;
+
+    public static synchronized ImageLoader getInstance(Context context) {
+        if (null == sInstance) {
+            sInstance = new ImageLoader(context.getApplicationContext(), (int) (Runtime
+                    .getRuntime().maxMemory() / 8));
+        }
+        return sInstance;
+    }
+
+    /**
+     * @param memoryCacheBytes max bytes of bitmaps kept in memory
+     */
+    public ImageLoader(Context context, int memoryCacheBytes) {
+        mContentResolver = context.getContentResolver();
+        mMemoryCache = new LruCache<String, Bitmap>(memoryCacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+        mDecodeExecutor = Executors.newFixedThreadPool(DECODE_THREAD_COUNT, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "BaseAdapter-image");
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+        mMainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Must be called on main thread. The image view is cleared until the bitmap is decoded,
+     * so it never shows the image of a recycled row.
+     *
+     * @param targetSize max width and height in px the bitmap is downsampled to
+     * @return request to cancel, or null if the bitmap was in memory cache
+     */
+    public Request load(Uri uri, int targetSize, ImageView imageView) {
+        final String key = uri + "@" + targetSize;
+        Bitmap cachedBitmap = mMemoryCache.get(key);
+        if (null != cachedBitmap) {
+            imageView.setImageBitmap(cachedBitmap);
+            return null;
+        }
+        imageView.setImageDrawable(null);
+        Request request = new Request(key, uri, targetSize, imageView);
+        request.mFuture = mDecodeExecutor.submit(request);
+        return request;
+    }
+
+    public void clearMemory() {
+        mMemoryCache.evictAll();
+    }
+
+    private Bitmap decode(Uri uri, int targetSize) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        InputStream inputStream = mContentResolver.openInputStream(uri);
+        try {
+            BitmapFactory.decodeStream(inputStream, null, options);
+        } finally {
+            inputStream.close();
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight,
+                targetSize);
+        inputStream = mContentResolver.openInputStream(uri);
+        try {
+            return BitmapFactory.decodeStream(inputStream, null, options);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * @return the largest power of 2 which keeps both sides not smaller than target size.
+     */
+    static int calculateInSampleSize(int width, int height, int targetSize) {
+        int inSampleSize = 1;
+        if (targetSize <= 0) {
+            return inSampleSize;
+        }
+        while (width / (inSampleSize * 2) >= targetSize && height / (inSampleSize * 2) >=
+                targetSize) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    public class Request implements Runnable {
+        private final String mKey;
+        private final Uri mUri;
+        private final int mTargetSize;
+        private final ImageView mImageView;
+        private volatile boolean mCancelled;
+        private Future<?> mFuture;
+
+        Request(String key, Uri uri, int targetSize, ImageView imageView) {
+            mKey = key;
+            mUri = uri;
+            mTargetSize = targetSize;
+            mImageView = imageView;
+        }
+
+        @Override
+        public void run() {
+            if (mCancelled) {
+                return;
+            }
+            final Bitmap bitmap;
+            try {
+                bitmap = decode(mUri, mTargetSize);
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "Failed to decode " + mUri, e);
+                return;
+            }
+            if (null == bitmap) {
+                return;
+            }
+            mMemoryCache.put(mKey, bitmap);
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!mCancelled) {
+                        mImageView.setImageBitmap(bitmap);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Must be called on main thread, the image view is not touched after cancelled.
+         */
+        public void cancel() {
+            mCancelled = true;
+            if (null != mFuture) {
+                mFuture.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.yat3s.library.adapter;
+
+import java.util.Arrays;
+
+/**
+ * An int to int hash map with open addressing and linear probing, it never boxes keys or
+ * values so lookups do not allocate.
+ */
+
+final class IntIntMap {
+    private static final int FREE_KEY = 0;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] mKeys;
+    private int[] mValues;
+    private int mSize;
+    // Key 0 marks a free slot, so its value is stored aside
+    private boolean mHasFreeKey;
+    private int mFreeKeyValue;
+
+    IntIntMap() {
+        this(16);
+    }
+
+    IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1)
+                << 1;
+        mKeys = new int[capacity];
+        mValues = new int[capacity];
+    }
+
+    int get(int key, int defaultValue) {
+        if (key == FREE_KEY) {
+            return mHasFreeKey ? mFreeKeyValue : defaultValue;
+        }
+        int mask = mKeys.length - 1;
+        for (int index = mix(key) & mask; ; index = (index + 1) & mask) {
+            int current = mKeys[index];
+            if (current == key) {
+                return mValues[index];
+            } else if (current == FREE_KEY) {
+                return defaultValue;
+            }
+        }
+    }
+
+    boolean containsKey(int key) {
+        if (key == FREE_KEY) {
+            return mHasFreeKey;
+        }
+        int mask = mKeys.length - 1;
+        for (int index = mix(key) & mask; ; index = (index + 1) & mask) {
+            int current = mKeys[index];
+            if (current == key) {
+                return true;
+            } else if (current == FREE_KEY) {
+                return false;
+            }
+        }
+    }
+
+    void put(int key, int value) {
+        if (key == FREE_KEY) {
+            if (!mHasFreeKey) {
+                mSize++;
+            }
+            mHasFreeKey = true;
+            mFreeKeyValue = value;
+            return;
+        }
+        int mask = mKeys.length - 1;
+        int index = mix(key) & mask;
+        while (mKeys[index] != FREE_KEY && mKeys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        if (mKeys[index] == FREE_KEY) {
+            mKeys[index] = key;
+            if (++mSize > mKeys.length * LOAD_FACTOR) {
+                mValues[index] = value;
+                rehash(mKeys.length << 1);
+                return;
+            }
+        }
+        mValues[index] = value;
+    }
+
+    void remove(int key) {
+        if (key == FREE_KEY) {
+            if (mHasFreeKey) {
+                mHasFreeKey = false;
+                mSize--;
+            }
+            return;
+        }
+        int mask = mKeys.length - 1;
+        int index = mix(key) & mask;
+        while (mKeys[index] != key) {
+            if (mKeys[index] == FREE_KEY) {
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        mSize--;
+        // Shift following keys back, so probing does not stop at the hole
+        int hole = index;
+        while (true) {
+            index = (index + 1) & mask;
+            int current = mKeys[index];
+            if (current == FREE_KEY) {
+                mKeys[hole] = FREE_KEY;
+                return;
+            }
+            int slot = mix(current) & mask;
+            boolean reachable = hole < index ? (slot > hole && slot <= index) : (slot > hole ||
+                    slot <= index);
+            if (!reachable) {
+                mKeys[hole] = current;
+                mValues[hole] = mValues[index];
+                hole = index;
+            }
+        }
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    void clear() {
+        Arrays.fill(mKeys, FREE_KEY);
+        mHasFreeKey = false;
+        mSize = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = mKeys;
+        int[] oldValues = mValues;
+        mKeys = new int[capacity];
+        mValues = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int index = mix(key) & mask;
+                while (mKeys[index] != FREE_KEY) {
+                    index = (index + 1) & mask;
+                }
+                mKeys[index] = key;
+                mValues[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Resource ids share their high bits, so spread them before masking.
+     */
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
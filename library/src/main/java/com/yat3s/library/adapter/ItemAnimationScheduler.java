@@ -0,0 +1,124 @@
+package com.yat3s.library.adapter;
+
+import java.util.Arrays;
+
+/**
+ * Decides when and how long item animations run. Animations are shortened or skipped while
+ * the list scrolls fast, rows bound together while the list is idle enter one after another,
+ * and no more than a fixed number of animations run at once.
+ * <p>
+ * Times are uptime millis passed in by the caller, it keeps no reference to views.
+ */
+
+final class ItemAnimationScheduler {
+    static final long SKIP = -1;
+
+    // Scroll events further apart than this do not belong to the same scroll
+    private static final long MAX_SCROLL_EVENT_GAP = 100;
+
+    private int mFlingThreshold;
+    private int mStaggerDelay = 40;
+    // End time of the animation running in each slot
+    private long[] mSlotEndTimes = new long[4];
+    private float mVelocity;
+    private long mLastScrollTime;
+    private boolean mIdle = true;
+    private int mCascadeIndex;
+
+    /**
+     * @param flingThreshold velocity in px per second above which animations are skipped
+     */
+    ItemAnimationScheduler(int flingThreshold) {
+        mFlingThreshold = flingThreshold;
+    }
+
+    void setFlingThreshold(int flingThreshold) {
+        mFlingThreshold = flingThreshold;
+    }
+
+    void setStaggerDelay(int staggerDelay) {
+        mStaggerDelay = staggerDelay;
+    }
+
+    void setMaxConcurrentAnimations(int maxConcurrentAnimations) {
+        if (maxConcurrentAnimations < 1) {
+            throw new IllegalArgumentException("Max concurrent animations must be positive");
+        }
+        mSlotEndTimes = Arrays.copyOf(mSlotEndTimes, maxConcurrentAnimations);
+    }
+
+    void onScrollStateChanged(boolean idle) {
+        mIdle = idle;
+        if (idle) {
+            mVelocity = 0;
+        }
+    }
+
+    void onScrolled(int dx, int dy, long now) {
+        long elapsed = now - mLastScrollTime;
+        mLastScrollTime = now;
+        if (elapsed <= 0 || elapsed > MAX_SCROLL_EVENT_GAP) {
+            // First frame of a scroll, the distance of one frame is all we know
+            elapsed = 16;
+        }
+        float velocity = (Math.abs(dx) + Math.abs(dy)) * 1000f / elapsed;
+        // Smooth out uneven frames
+        mVelocity = (mVelocity + velocity) / 2;
+    }
+
+    /**
+     * @return scroll velocity in px per second, it drops to 0 when scroll events stop coming.
+     */
+    float getVelocity(long now) {
+        return now - mLastScrollTime > MAX_SCROLL_EVENT_GAP ? 0 : mVelocity;
+    }
+
+    /**
+     * @return the duration to run with, it is halved above half of the fling threshold, or
+     * {@link #SKIP} above the threshold.
+     */
+    long scaleDuration(long duration, long now) {
+        float velocity = getVelocity(now);
+        if (mFlingThreshold > 0 && velocity >= mFlingThreshold) {
+            return SKIP;
+        } else if (mFlingThreshold > 0 && velocity >= mFlingThreshold / 2) {
+            return duration / 2;
+        }
+        return duration;
+    }
+
+    /**
+     * Reserves a slot for an animation, call {@link #endCascade()} when the layout pass which
+     * binds the rows is done.
+     *
+     * @return start delay of the animation, or {@link #SKIP} if it can not start right now
+     * while scrolling.
+     */
+    long schedule(long duration, long now) {
+        int slot = 0;
+        for (int i = 1; i < mSlotEndTimes.length; i++) {
+            if (mSlotEndTimes[i] < mSlotEndTimes[slot]) {
+                slot = i;
+            }
+        }
+        long startTime;
+        if (mIdle && getVelocity(now) == 0) {
+            // Rows of an idle list appear at once, such as the first load, let them cascade
+            startTime = Math.max(now + mCascadeIndex++ * mStaggerDelay, mSlotEndTimes[slot]);
+        } else if (mSlotEndTimes[slot] <= now) {
+            startTime = now;
+        } else {
+            return SKIP;
+        }
+        mSlotEndTimes[slot] = startTime + duration;
+        return startTime - now;
+    }
+
+    boolean isInCascade() {
+        return mCascadeIndex > 0;
+    }
+
+    void endCascade() {
+        mCascadeIndex = 0;
+    }
+}
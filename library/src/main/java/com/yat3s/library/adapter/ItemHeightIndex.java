@@ -0,0 +1,333 @@
+package com.yat3s.library.adapter;
+
+import java.util.Arrays;
+
+/**
+ * Pixel offsets of adapter positions, built from measured row heights. Rows not measured yet
+ * count as the average measured height of their view type, or of all rows when the type is
+ * unknown too.
+ * <p>
+ * Measured heights are kept in a Fenwick tree, and unmeasured rows are counted per view type
+ * in one more Fenwick tree each, so estimates can change without touching the trees.
+ * Recording a height and both queries take O(log n) per view type. Appending rows is
+ * O(log n) per row, other inserts, removals and moves rebuild the trees in O(n).
+ */
+
+public final class ItemHeightIndex {
+    private static final int UNMEASURED = -1;
+    // Slot of rows whose view type is unknown
+    private static final int UNKNOWN_SLOT = 0;
+
+    private final int mDefaultEstimate;
+    private int mSize;
+    // Measured height of each position or UNMEASURED
+    private int[] mHeights = new int[0];
+    // View type slot of each position
+    private int[] mSlots = new int[0];
+    // 1-based Fenwick trees, measured heights and unmeasured row counts per slot
+    private long[] mMeasuredTree = new long[1];
+    private int[][] mUnmeasuredTrees = new int[][]{new int[1]};
+    // View type to slot, slots are never reused
+    private final IntIntMap mTypeSlots = new IntIntMap();
+    private long[] mSlotHeightSums = new long[1];
+    private int[] mSlotMeasuredCounts = new int[1];
+    private long mTotalHeightSum;
+    private int mTotalMeasuredCount;
+
+    /**
+     * @param defaultEstimate height in px used until any row is measured
+     */
+    public ItemHeightIndex(int defaultEstimate) {
+        mDefaultEstimate = defaultEstimate;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Forgets all positions, the estimates of view types are kept.
+     */
+    public void reset(int size) {
+        mSize = size;
+        mHeights = new int[size];
+        mSlots = new int[size];
+        Arrays.fill(mHeights, UNMEASURED);
+        rebuild();
+    }
+
+    public void record(int position, int viewType, int height) {
+        checkPosition(position);
+        int slot = slotOf(viewType);
+        int oldSlot = mSlots[position];
+        int oldHeight = mHeights[position];
+        if (oldHeight == UNMEASURED) {
+            addToTree(mUnmeasuredTrees[oldSlot], position, -1);
+        } else {
+            addToTree(mMeasuredTree, position, -oldHeight);
+            mSlotHeightSums[oldSlot] -= oldHeight;
+            mSlotMeasuredCounts[oldSlot]--;
+            mTotalHeightSum -= oldHeight;
+            mTotalMeasuredCount--;
+        }
+        mSlots[position] = slot;
+        mHeights[position] = height;
+        addToTree(mMeasuredTree, position, height);
+        mSlotHeightSums[slot] += height;
+        mSlotMeasuredCounts[slot]++;
+        mTotalHeightSum += height;
+        mTotalMeasuredCount++;
+    }
+
+    /**
+     * Lets an unmeasured row use the estimate of its view type.
+     */
+    public void setViewType(int position, int viewType) {
+        checkPosition(position);
+        if (mHeights[position] != UNMEASURED) {
+            return;
+        }
+        int slot = slotOf(viewType);
+        if (slot != mSlots[position]) {
+            addToTree(mUnmeasuredTrees[mSlots[position]], position, -1);
+            addToTree(mUnmeasuredTrees[slot], position, 1);
+            mSlots[position] = slot;
+        }
+    }
+
+    /**
+     * Marks the rows unmeasured, they keep their view types.
+     */
+    public void onChanged(int position, int count) {
+        for (int i = position; i < position + count && i < mSize; i++) {
+            int height = mHeights[i];
+            if (height != UNMEASURED) {
+                int slot = mSlots[i];
+                addToTree(mMeasuredTree, i, -height);
+                addToTree(mUnmeasuredTrees[slot], i, 1);
+                mSlotHeightSums[slot] -= height;
+                mSlotMeasuredCounts[slot]--;
+                mTotalHeightSum -= height;
+                mTotalMeasuredCount--;
+                mHeights[i] = UNMEASURED;
+            }
+        }
+    }
+
+    public void onInserted(int position, int count) {
+        ensureCapacity(mSize + count);
+        if (position == mSize) {
+            for (int i = 0; i < count; i++) {
+                append();
+            }
+            return;
+        }
+        System.arraycopy(mHeights, position, mHeights, position + count, mSize - position);
+        System.arraycopy(mSlots, position, mSlots, position + count, mSize - position);
+        Arrays.fill(mHeights, position, position + count, UNMEASURED);
+        Arrays.fill(mSlots, position, position + count, UNKNOWN_SLOT);
+        mSize += count;
+        rebuild();
+    }
+
+    public void onRemoved(int position, int count) {
+        for (int i = position; i < position + count; i++) {
+            int height = mHeights[i];
+            if (height != UNMEASURED) {
+                mSlotHeightSums[mSlots[i]] -= height;
+                mSlotMeasuredCounts[mSlots[i]]--;
+                mTotalHeightSum -= height;
+                mTotalMeasuredCount--;
+            }
+        }
+        System.arraycopy(mHeights, position + count, mHeights, position, mSize - position -
+                count);
+        System.arraycopy(mSlots, position + count, mSlots, position, mSize - position - count);
+        mSize -= count;
+        rebuild();
+    }
+
+    public void onMoved(int fromPosition, int toPosition) {
+        int height = mHeights[fromPosition];
+        int slot = mSlots[fromPosition];
+        if (fromPosition < toPosition) {
+            System.arraycopy(mHeights, fromPosition + 1, mHeights, fromPosition, toPosition -
+                    fromPosition);
+            System.arraycopy(mSlots, fromPosition + 1, mSlots, fromPosition, toPosition -
+                    fromPosition);
+        } else {
+            System.arraycopy(mHeights, toPosition, mHeights, toPosition + 1, fromPosition -
+                    toPosition);
+            System.arraycopy(mSlots, toPosition, mSlots, toPosition + 1, fromPosition -
+                    toPosition);
+        }
+        mHeights[toPosition] = height;
+        mSlots[toPosition] = slot;
+        rebuild();
+    }
+
+    /**
+     * @return measured height of the position, or its estimate.
+     */
+    public int getHeight(int position) {
+        checkPosition(position);
+        int height = mHeights[position];
+        return height != UNMEASURED ? height : getEstimate(mSlots[position]);
+    }
+
+    /**
+     * @return offset in px of the top of the position, position may be {@link #size()} for
+     * the bottom of the last row.
+     */
+    public long getOffset(int position) {
+        if (position < 0 || position > mSize) {
+            throw new IndexOutOfBoundsException("Position " + position + ", size " + mSize);
+        }
+        long offset = 0;
+        for (int i = position; i > 0; i -= i & -i) {
+            offset += mMeasuredTree[i];
+        }
+        for (int slot = 0; slot < mUnmeasuredTrees.length; slot++) {
+            int[] tree = mUnmeasuredTrees[slot];
+            long count = 0;
+            for (int i = position; i > 0; i -= i & -i) {
+                count += tree[i];
+            }
+            offset += count * getEstimate(slot);
+        }
+        return offset;
+    }
+
+    public long getTotalHeight() {
+        return getOffset(mSize);
+    }
+
+    /**
+     * @return the position which covers the offset, offsets out of the list are clamped to
+     * the first or last position, -1 if it is empty.
+     */
+    public int getPosition(long offset) {
+        if (mSize == 0) {
+            return -1;
+        }
+        int slotCount = mUnmeasuredTrees.length;
+        // Estimates are not negative, so the combined prefix sums are monotonic and one
+        // descent over all trees finds the last position whose top is not after offset
+        int position = 0;
+        long remaining = offset;
+        for (int step = Integer.highestOneBit(mSize); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next > mSize) {
+                continue;
+            }
+            long sum = mMeasuredTree[next];
+            for (int slot = 0; slot < slotCount; slot++) {
+                sum += (long) mUnmeasuredTrees[slot][next] * getEstimate(slot);
+            }
+            if (sum <= remaining) {
+                position = next;
+                remaining -= sum;
+            }
+        }
+        return Math.min(position, mSize - 1);
+    }
+
+    private int getEstimate(int slot) {
+        if (mSlotMeasuredCounts[slot] > 0) {
+            return (int) (mSlotHeightSums[slot] / mSlotMeasuredCounts[slot]);
+        }
+        return mTotalMeasuredCount > 0 ? (int) (mTotalHeightSum / mTotalMeasuredCount) :
+                mDefaultEstimate;
+    }
+
+    private int slotOf(int viewType) {
+        int slot = mTypeSlots.get(viewType, UNKNOWN_SLOT);
+        if (slot == UNKNOWN_SLOT) {
+            slot = mUnmeasuredTrees.length;
+            mTypeSlots.put(viewType, slot);
+            mUnmeasuredTrees = Arrays.copyOf(mUnmeasuredTrees, slot + 1);
+            mUnmeasuredTrees[slot] = new int[mMeasuredTree.length];
+            mSlotHeightSums = Arrays.copyOf(mSlotHeightSums, slot + 1);
+            mSlotMeasuredCounts = Arrays.copyOf(mSlotMeasuredCounts, slot + 1);
+        }
+        return slot;
+    }
+
+    private void append() {
+        int position = mSize++;
+        mHeights[position] = UNMEASURED;
+        mSlots[position] = UNKNOWN_SLOT;
+        // A node covers (index - lowbit, index], the new row is its only unset part
+        int index = position + 1;
+        int lowBit = index & -index;
+        mMeasuredTree[index] = 0;
+        for (int i = index - 1; i > index - lowBit; i -= i & -i) {
+            mMeasuredTree[index] += mMeasuredTree[i];
+        }
+        for (int[] tree : mUnmeasuredTrees) {
+            tree[index] = 0;
+            for (int i = index - 1; i > index - lowBit; i -= i & -i) {
+                tree[index] += tree[i];
+            }
+        }
+        mUnmeasuredTrees[UNKNOWN_SLOT][index]++;
+    }
+
+    private void rebuild() {
+        ensureCapacity(mSize);
+        Arrays.fill(mMeasuredTree, 0);
+        for (int[] tree : mUnmeasuredTrees) {
+            Arrays.fill(tree, 0);
+        }
+        for (int i = 0; i < mSize; i++) {
+            if (mHeights[i] == UNMEASURED) {
+                mUnmeasuredTrees[mSlots[i]][i + 1]++;
+            } else {
+                mMeasuredTree[i + 1] += mHeights[i];
+            }
+        }
+        // Linear build, push each node to its parent
+        for (int index = 1; index <= mSize; index++) {
+            int parent = index + (index & -index);
+            if (parent <= mSize) {
+                mMeasuredTree[parent] += mMeasuredTree[index];
+                for (int[] tree : mUnmeasuredTrees) {
+                    tree[parent] += tree[index];
+                }
+            }
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (mHeights.length < size) {
+            int capacity = Math.max(size, mHeights.length * 2);
+            mHeights = Arrays.copyOf(mHeights, capacity);
+            mSlots = Arrays.copyOf(mSlots, capacity);
+        }
+        if (mMeasuredTree.length < size + 1) {
+            int capacity = Math.max(size + 1, mMeasuredTree.length * 2);
+            mMeasuredTree = Arrays.copyOf(mMeasuredTree, capacity);
+            for (int slot = 0; slot < mUnmeasuredTrees.length; slot++) {
+                mUnmeasuredTrees[slot] = Arrays.copyOf(mUnmeasuredTrees[slot], capacity);
+            }
+        }
+    }
+
+    private void addToTree(long[] tree, int position, int delta) {
+        for (int i = position + 1; i <= mSize; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private void addToTree(int[] tree, int position, int delta) {
+        for (int i = position + 1; i <= mSize; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("Position " + position + ", size " + mSize);
+        }
+    }
+}
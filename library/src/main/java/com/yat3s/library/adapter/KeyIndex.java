@@ -0,0 +1,155 @@
+package com.yat3s.library.adapter;
+
+/**
+ * Data position of each item key. Positions are stored relative to an offset, so an insert
+ * or removal only indexes again the items on its shorter side, the items on the other side
+ * follow the offset. Keys of removed and changed items are left behind, a lookup checks the
+ * key at the position it finds, and the index is built again once they outnumber the items.
+ * <p>
+ * It has no android dependency.
+ */
+
+final class KeyIndex {
+
+    interface KeySource {
+        int size();
+
+        /**
+         * @return false if the item is not loaded, such as a placeholder of a paged list.
+         */
+        boolean hasKey(int position);
+
+        long getKey(int position);
+    }
+
+    private static final int MISSING = Integer.MIN_VALUE;
+
+    private final LongIntMap mPositions;
+    // Position of a key is its stored value plus the offset
+    private int mOffset;
+    private boolean isStale = true;
+
+    KeyIndex(int expectedSize) {
+        mPositions = new LongIntMap(expectedSize);
+    }
+
+    /**
+     * Builds the index again on next lookup.
+     */
+    void invalidate() {
+        isStale = true;
+    }
+
+    /**
+     * @return position of the key, or -1.
+     */
+    int positionOf(long key, KeySource keySource) {
+        if (isStale) {
+            build(keySource);
+        }
+        int stored = mPositions.get(key, MISSING);
+        if (stored == MISSING) {
+            return -1;
+        }
+        int position = stored + mOffset;
+        if (position < 0 || position >= keySource.size() || !keySource.hasKey(position) ||
+                keySource.getKey(position) != key) {
+            return -1;
+        }
+        return position;
+    }
+
+    /**
+     * Key source already has the inserted items.
+     */
+    void onInserted(int position, int count, KeySource keySource) {
+        if (isStale) {
+            return;
+        }
+        int size = keySource.size();
+        int end = position + count;
+        if (position < 0 || end > size) {
+            isStale = true;
+            return;
+        }
+        if (position < size - end) {
+            // Items after the range move by the offset, the ones before are stored again
+            mOffset += count;
+            index(0, position, keySource);
+        } else {
+            index(end, size, keySource);
+        }
+        index(position, end, keySource);
+    }
+
+    /**
+     * Key source already has the items removed.
+     */
+    void onRemoved(int position, int count, KeySource keySource) {
+        if (isStale) {
+            return;
+        }
+        int size = keySource.size();
+        if (position < 0 || position > size) {
+            isStale = true;
+            return;
+        }
+        if (position < size - position) {
+            mOffset -= count;
+            index(0, position, keySource);
+        } else {
+            index(position, size, keySource);
+        }
+        checkLeftKeys(size);
+    }
+
+    /**
+     * @param fromPosition position before the move
+     * @param toPosition   position after the move
+     */
+    void onMoved(int fromPosition, int toPosition, KeySource keySource) {
+        if (isStale) {
+            return;
+        }
+        index(Math.min(fromPosition, toPosition), Math.max(fromPosition, toPosition) + 1,
+                keySource);
+    }
+
+    /**
+     * Positions out of the data are ignored.
+     */
+    void onChanged(int position, int count, KeySource keySource) {
+        if (isStale) {
+            return;
+        }
+        int size = keySource.size();
+        index(Math.max(0, position), Math.min(size, position + count), keySource);
+        checkLeftKeys(size);
+    }
+
+    private void build(KeySource keySource) {
+        mPositions.clear();
+        mOffset = 0;
+        // Backwards, so the first of duplicate keys wins
+        for (int position = keySource.size() - 1; position >= 0; position--) {
+            if (keySource.hasKey(position)) {
+                mPositions.put(keySource.getKey(position), position);
+            }
+        }
+        isStale = false;
+    }
+
+    private void index(int start, int end, KeySource keySource) {
+        for (int position = start; position < end; position++) {
+            if (keySource.hasKey(position)) {
+                mPositions.put(keySource.getKey(position), position - mOffset);
+            }
+        }
+    }
+
+    private void checkLeftKeys(int size) {
+        if (mPositions.size() > size * 2 + 16) {
+            isStale = true;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.yat3s.library.adapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Computes the difference between two lists with Eugene Myers's algorithm in linear space,
+ * the result is a minimal list of insert / remove / change ranges.
+ * It has no android dependency, so it is safe to run on any thread.
+ */
+
+public final class ListDiffer {
+
+    private ListDiffer() {
+    }
+
+    public static <T> DiffResult<T> calculateDiff(List<T> oldList, List<T> newList,
+                                                  DiffCallback<T> callback) {
+        final int oldSize = oldList.size();
+        final int newSize = newList.size();
+        final List<Diagonal> diagonals = new ArrayList<>();
+        final List<Range> stack = new ArrayList<>();
+        stack.add(new Range(0, oldSize, 0, newSize));
+
+        final int max = (oldSize + newSize + 1) / 2;
+        // Both arrays are indexed by diagonal k, shifted by max so k can be negative
+        final int[] forward = new int[max * 2 + 3];
+        final int[] backward = new int[max * 2 + 3];
+
+        while (!stack.isEmpty()) {
+            Range range = stack.remove(stack.size() - 1);
+            Snake snake = midPoint(range, oldList, newList, callback, forward, backward, max + 1);
+            if (null != snake) {
+                if (snake.diagonalSize() > 0) {
+                    diagonals.add(snake.toDiagonal());
+                }
+                stack.add(new Range(range.oldStart, snake.startX, range.newStart, snake.startY));
+                stack.add(new Range(snake.endX, range.oldEnd, snake.endY, range.newEnd));
+            }
+        }
+        Collections.sort(diagonals, new Comparator<Diagonal>() {
+            @Override
+            public int compare(Diagonal lhs, Diagonal rhs) {
+                return lhs.x - rhs.x;
+            }
+        });
+        return new DiffResult<>(oldList, newList, callback, diagonals);
+    }
+
+    private static <T> Snake midPoint(Range range, List<T> oldList, List<T> newList,
+                                      DiffCallback<T> callback, int[] forward, int[] backward,
+                                      int mid) {
+        if (range.oldSize() < 1 || range.newSize() < 1) {
+            return null;
+        }
+        int max = (range.oldSize() + range.newSize() + 1) / 2;
+        forward[mid + 1] = range.oldStart;
+        backward[mid + 1] = range.oldEnd;
+        for (int d = 0; d < max; d++) {
+            Snake snake = forward(range, oldList, newList, callback, forward, backward, mid, d);
+            if (null != snake) {
+                return snake;
+            }
+            snake = backward(range, oldList, newList, callback, forward, backward, mid, d);
+            if (null != snake) {
+                return snake;
+            }
+        }
+        return null;
+    }
+
+    private static <T> Snake forward(Range range, List<T> oldList, List<T> newList,
+                                     DiffCallback<T> callback, int[] forward, int[] backward,
+                                     int mid, int d) {
+        boolean checkForSnake = Math.abs(range.oldSize() - range.newSize()) % 2 == 1;
+        int delta = range.oldSize() - range.newSize();
+        for (int k = -d; k <= d; k += 2) {
+            int startX, x;
+            if (k == -d || (k != d && forward[mid + k + 1] > forward[mid + k - 1])) {
+                // Move down
+                x = startX = forward[mid + k + 1];
+            } else {
+                // Move right
+                startX = forward[mid + k - 1];
+                x = startX + 1;
+            }
+            int y = range.newStart + (x - range.oldStart) - k;
+            int startY = (d == 0 || x != startX) ? y : y - 1;
+            while (x < range.oldEnd && y < range.newEnd
+                    && callback.areItemsTheSame(oldList.get(x), newList.get(y))) {
+                x++;
+                y++;
+            }
+            forward[mid + k] = x;
+            if (checkForSnake) {
+                int backwardK = delta - k;
+                if (backwardK >= -d + 1 && backwardK <= d - 1 && backward[mid + backwardK] <= x) {
+                    return new Snake(startX, startY, x, y, false);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static <T> Snake backward(Range range, List<T> oldList, List<T> newList,
+                                      DiffCallback<T> callback, int[] forward, int[] backward,
+                                      int mid, int d) {
+        boolean checkForSnake = (range.oldSize() - range.newSize()) % 2 == 0;
+        int delta = range.oldSize() - range.newSize();
+        for (int k = -d; k <= d; k += 2) {
+            int startX, x;
+            if (k == -d || (k != d && backward[mid + k + 1] < backward[mid + k - 1])) {
+                // Move up
+                x = startX = backward[mid + k + 1];
+            } else {
+                // Move left
+                startX = backward[mid + k - 1];
+                x = startX - 1;
+            }
+            int y = range.newEnd - ((range.oldEnd - x) - k);
+            int startY = (d == 0 || x != startX) ? y : y + 1;
+            while (x > range.oldStart && y > range.newStart
+                    && callback.areItemsTheSame(oldList.get(x - 1), newList.get(y - 1))) {
+                x--;
+                y--;
+            }
+            backward[mid + k] = x;
+            if (checkForSnake) {
+                int forwardK = delta - k;
+                if (forwardK >= -d && forwardK <= d && forward[mid + forwardK] >= x) {
+                    return new Snake(x, y, startX, startY, true);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Holds the matched diagonals of two lists, use {@link #dispatchUpdatesTo(ListUpdateCallback)}
+     * to replay the difference as range operations.
+     */
+    public static class DiffResult<T> {
+        private final List<T> mOldList, mNewList;
+        private final DiffCallback<T> mCallback;
+        private final List<Diagonal> mDiagonals;
+
+        DiffResult(List<T> oldList, List<T> newList, DiffCallback<T> callback,
+                   List<Diagonal> diagonals) {
+            mOldList = oldList;
+            mNewList = newList;
+            mCallback = callback;
+            mDiagonals = diagonals;
+        }
+
+        public List<T> getOldList() {
+            return mOldList;
+        }
+
+        public List<T> getNewList() {
+            return mNewList;
+        }
+
+        /**
+         * Operations are dispatched from the end of the list to the start, so every position
+         * is still valid when it is applied to the old list one by one.
+         */
+        public void dispatchUpdatesTo(ListUpdateCallback updateCallback) {
+            int posX = mOldList.size();
+            int posY = mNewList.size();
+            for (int i = mDiagonals.size() - 1; i >= 0; i--) {
+                Diagonal diagonal = mDiagonals.get(i);
+                dispatchGap(updateCallback, diagonal.endX(), posX, diagonal.endY(), posY);
+                dispatchChanges(updateCallback, diagonal);
+                posX = diagonal.x;
+                posY = diagonal.y;
+            }
+            dispatchGap(updateCallback, 0, posX, 0, posY);
+        }
+
+        private void dispatchGap(ListUpdateCallback updateCallback, int startX, int endX,
+                                 int startY, int endY) {
+            if (endX > startX) {
+                updateCallback.onRemoved(startX, endX - startX);
+            }
+            if (endY > startY) {
+                updateCallback.onInserted(startX, endY - startY);
+            }
+        }
+
+        private void dispatchChanges(ListUpdateCallback updateCallback, Diagonal diagonal) {
+            int runEnd = -1;
+            Object runPayload = null;
+            for (int offset = diagonal.size - 1; offset >= 0; offset--) {
+                int x = diagonal.x + offset;
+                T oldItem = mOldList.get(x);
+                T newItem = mNewList.get(diagonal.y + offset);
+                boolean same = mCallback.areContentsTheSame(oldItem, newItem);
+                Object payload = same ? null : mCallback.getChangePayload(oldItem, newItem);
+                if (runEnd >= 0 && (same || !samePayload(runPayload, payload))) {
+                    updateCallback.onChanged(x + 1, runEnd - x - 1, runPayload);
+                    runEnd = -1;
+                }
+                if (!same && runEnd < 0) {
+                    runEnd = x + 1;
+                    runPayload = payload;
+                }
+            }
+            if (runEnd >= 0) {
+                updateCallback.onChanged(diagonal.x, runEnd - diagonal.x, runPayload);
+            }
+        }
+
+        private static boolean samePayload(Object lhs, Object rhs) {
+            return null == lhs ? null == rhs : lhs.equals(rhs);
+        }
+    }
+
+    static class Diagonal {
+        final int x, y, size;
+
+        Diagonal(int x, int y, int size) {
+            this.x = x;
+            this.y = y;
+            this.size = size;
+        }
+
+        int endX() {
+            return x + size;
+        }
+
+        int endY() {
+            return y + size;
+        }
+    }
+
+    private static class Range {
+        final int oldStart, oldEnd, newStart, newEnd;
+
+        Range(int oldStart, int oldEnd, int newStart, int newEnd) {
+            this.oldStart = oldStart;
+            this.oldEnd = oldEnd;
+            this.newStart = newStart;
+            this.newEnd = newEnd;
+        }
+
+        int oldSize() {
+            return oldEnd - oldStart;
+        }
+
+        int newSize() {
+            return newEnd - newStart;
+        }
+    }
+
+    private static class Snake {
+        final int startX, startY, endX, endY;
+        final boolean reverse;
+
+        Snake(int startX, int startY, int endX, int endY, boolean reverse) {
+            this.startX = startX;
+            this.startY = startY;
+            this.endX = endX;
+            this.endY = endY;
+            this.reverse = reverse;
+        }
+
+        boolean hasAdditionOrRemoval() {
+            return endY - startY != endX - startX;
+        }
+
+        int diagonalSize() {
+            return Math.min(endX - startX, endY - startY);
+        }
+
+        Diagonal toDiagonal() {
+            if (!hasAdditionOrRemoval()) {
+                return new Diagonal(startX, startY, endX - startX);
+            } else if (reverse) {
+                return new Diagonal(startX, startY, diagonalSize());
+            } else if (endY - startY > endX - startX) {
+                return new Diagonal(startX, startY + 1, diagonalSize());
+            } else {
+                return new Diagonal(startX + 1, startY, diagonalSize());
+            }
+        }
+    }
+}
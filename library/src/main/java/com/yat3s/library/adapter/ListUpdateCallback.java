@@ -0,0 +1,16 @@
+package com.yat3s.library.adapter;
+
+/**
+ * Receives the update operations of a list, positions are the data positions at the time
+ * each operation is dispatched.
+ */
+
+public interface ListUpdateCallback {
+    void onInserted(int position, int count);
+
+    void onRemoved(int position, int count);
+
+    void onMoved(int fromPosition, int toPosition);
+
+    void onChanged(int position, int count, Object payload);
+}
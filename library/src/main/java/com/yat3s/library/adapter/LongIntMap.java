@@ -0,0 +1,123 @@
+package com.yat3s.library.adapter;
+
+import java.util.Arrays;
+
+/**
+ * A long to int hash map with open addressing and linear probing, same as {@link IntIntMap}
+ * but for long keys such as item ids.
+ */
+
+final class LongIntMap {
+    private static final long FREE_KEY = 0;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] mKeys;
+    private int[] mValues;
+    private int mSize;
+    // Key 0 marks a free slot, so its value is stored aside
+    private boolean mHasFreeKey;
+    private int mFreeKeyValue;
+
+    LongIntMap() {
+        this(16);
+    }
+
+    LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1)
+                << 1;
+        mKeys = new long[capacity];
+        mValues = new int[capacity];
+    }
+
+    int get(long key, int defaultValue) {
+        if (key == FREE_KEY) {
+            return mHasFreeKey ? mFreeKeyValue : defaultValue;
+        }
+        int mask = mKeys.length - 1;
+        for (int index = mix(key) & mask; ; index = (index + 1) & mask) {
+            long current = mKeys[index];
+            if (current == key) {
+                return mValues[index];
+            } else if (current == FREE_KEY) {
+                return defaultValue;
+            }
+        }
+    }
+
+    boolean containsKey(long key) {
+        if (key == FREE_KEY) {
+            return mHasFreeKey;
+        }
+        int mask = mKeys.length - 1;
+        for (int index = mix(key) & mask; ; index = (index + 1) & mask) {
+            long current = mKeys[index];
+            if (current == key) {
+                return true;
+            } else if (current == FREE_KEY) {
+                return false;
+            }
+        }
+    }
+
+    void put(long key, int value) {
+        if (key == FREE_KEY) {
+            if (!mHasFreeKey) {
+                mSize++;
+            }
+            mHasFreeKey = true;
+            mFreeKeyValue = value;
+            return;
+        }
+        int mask = mKeys.length - 1;
+        int index = mix(key) & mask;
+        while (mKeys[index] != FREE_KEY && mKeys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        if (mKeys[index] == FREE_KEY) {
+            mKeys[index] = key;
+            if (++mSize > mKeys.length * LOAD_FACTOR) {
+                mValues[index] = value;
+                rehash(mKeys.length << 1);
+                return;
+            }
+        }
+        mValues[index] = value;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    void clear() {
+        Arrays.fill(mKeys, FREE_KEY);
+        mHasFreeKey = false;
+        mSize = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = mKeys;
+        int[] oldValues = mValues;
+        mKeys = new long[capacity];
+        mValues = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int index = mix(key) & mask;
+                while (mKeys[index] != FREE_KEY) {
+                    index = (index + 1) & mask;
+                }
+                mKeys[index] = key;
+                mValues[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Ids are often sequential, so spread them and fold the high half in before masking.
+     */
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
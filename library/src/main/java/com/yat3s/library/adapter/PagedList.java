@@ -0,0 +1,238 @@
+package com.yat3s.library.adapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * A read only list of fixed size whose items are loaded in pages on demand, give it to
+ * {@link BaseAdapter#setPagedList(PagedList)}. Getting an item loads its page on background,
+ * until then the item is null and the row should show a placeholder.
+ * <p>
+ * At most {@link #setMaxLoadedItems(int)} items are kept, the pages farthest from the last
+ * accessed position are evicted and become placeholders again. The size never changes.
+ * <p>
+ * The list must only be used on main thread, or the thread results are delivered to.
+ */
+
+public class PagedList<T> extends AbstractList<T> {
+    private static final String TAG = "PagedList";
+
+    private static Executor sLoadExecutor;
+
+    /**
+     * Loads items on background thread.
+     */
+    public interface PageLoader<T> {
+        /**
+         * @return items from start position, its size should be load size unless it is the
+         * last page.
+         */
+        List<T> loadPage(int startPosition, int loadSize);
+    }
+
+    public interface Callback {
+        /**
+         * Items of the range are loaded or evicted.
+         */
+        void onItemRangeChanged(int position, int count);
+    }
+
+    private final PageLoader<T> mPageLoader;
+    private final int mSize;
+    private final int mPageSize;
+    private final Executor mLoadExecutor;
+    private final Executor mResultExecutor;
+    private final Object[][] mPages;
+    private final boolean[] mLoadingPages;
+    private int mLoadedPageCount;
+    private int mMaxLoadedPages = Integer.MAX_VALUE;
+    private int mLastAccessedPage;
+    private Callback mCallback;
+
+    /**
+     * @param size total item count, it stays the same
+     */
+    public PagedList(PageLoader<T> pageLoader, int size, int pageSize) {
+        this(pageLoader, size, pageSize, getDefaultLoadExecutor(), new Executor() {
+            private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+            @Override
+            public void execute(Runnable command) {
+                mMainHandler.post(command);
+            }
+        });
+    }
+
+    /**
+     * @param loadExecutor   runs the page loader
+     * @param resultExecutor delivers loaded pages, it must run on the thread using the list
+     */
+    public PagedList(PageLoader<T> pageLoader, int size, int pageSize, Executor loadExecutor,
+                     Executor resultExecutor) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        mPageLoader = pageLoader;
+        mSize = size;
+        mPageSize = pageSize;
+        mLoadExecutor = loadExecutor;
+        mResultExecutor = resultExecutor;
+        int pageCount = (size + pageSize - 1) / pageSize;
+        mPages = new Object[pageCount][];
+        mLoadingPages = new boolean[pageCount];
+    }
+
+    /**
+     * Memory budget of the list, at least two pages are kept so the visible window fits.
+     */
+    public void setMaxLoadedItems(int maxLoadedItems) {
+        mMaxLoadedPages = Math.max(2, maxLoadedItems / mPageSize);
+        evictPages(-1);
+    }
+
+    public void setCallback(Callback callback) {
+        mCallback = callback;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @return the item, or null if it is not loaded yet, its page starts loading then.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("Position " + position + ", size " + mSize);
+        }
+        loadAround(position);
+        Object[] page = mPages[position / mPageSize];
+        return null == page ? null : (T) page[position % mPageSize];
+    }
+
+    /**
+     * @return the item, or null if it is not loaded, no page is loaded or kept by it.
+     */
+    @SuppressWarnings("unchecked")
+    T peek(int position) {
+        Object[] page = mPages[position / mPageSize];
+        return null == page ? null : (T) page[position % mPageSize];
+    }
+
+    public boolean isLoaded(int position) {
+        return null != mPages[position / mPageSize];
+    }
+
+    public int getLoadedItemCount() {
+        int count = 0;
+        for (int i = 0; i < mPages.length; i++) {
+            if (null != mPages[i]) {
+                count += mPages[i].length;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Loads the page of the position, and the neighbour page of the half it is in, so the
+     * next page is ready before it is scrolled to.
+     */
+    public void loadAround(int position) {
+        int pageIndex = position / mPageSize;
+        mLastAccessedPage = pageIndex;
+        loadPage(pageIndex);
+        int neighbour = position % mPageSize < mPageSize / 2 ? pageIndex - 1 : pageIndex + 1;
+        if (neighbour >= 0 && neighbour < mPages.length) {
+            loadPage(neighbour);
+        }
+    }
+
+    private void loadPage(final int pageIndex) {
+        if (null != mPages[pageIndex] || mLoadingPages[pageIndex]) {
+            return;
+        }
+        mLoadingPages[pageIndex] = true;
+        final int startPosition = pageIndex * mPageSize;
+        final int loadSize = Math.min(mPageSize, mSize - startPosition);
+        mLoadExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<T> items = null;
+                try {
+                    items = mPageLoader.loadPage(startPosition, loadSize);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to load page at " + startPosition, e);
+                }
+                final List<T> result = items;
+                mResultExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onPageLoaded(pageIndex, result);
+                    }
+                });
+            }
+        });
+    }
+
+    private void onPageLoaded(int pageIndex, List<T> items) {
+        mLoadingPages[pageIndex] = false;
+        if (null == items) {
+            // Loaded again when it is accessed next time
+            return;
+        }
+        int startPosition = pageIndex * mPageSize;
+        Object[] page = new Object[Math.min(mPageSize, mSize - startPosition)];
+        for (int i = 0; i < page.length && i < items.size(); i++) {
+            page[i] = items.get(i);
+        }
+        mPages[pageIndex] = page;
+        mLoadedPageCount++;
+        if (null != mCallback) {
+            mCallback.onItemRangeChanged(startPosition, page.length);
+        }
+        evictPages(pageIndex);
+    }
+
+    /**
+     * Evicts the pages farthest from the last accessed page until the budget is met.
+     *
+     * @param keptPage page which must be kept, -1 for none
+     */
+    private void evictPages(int keptPage) {
+        while (mLoadedPageCount > mMaxLoadedPages) {
+            int farthestPage = -1;
+            for (int i = 0; i < mPages.length; i++) {
+                if (null != mPages[i] && i != keptPage && i != mLastAccessedPage && (farthestPage
+                        < 0 || Math.abs(i - mLastAccessedPage) > Math.abs(farthestPage -
+                        mLastAccessedPage))) {
+                    farthestPage = i;
+                }
+            }
+            if (farthestPage < 0) {
+                return;
+            }
+            int count = mPages[farthestPage].length;
+            mPages[farthestPage] = null;
+            mLoadedPageCount--;
+            if (null != mCallback) {
+                mCallback.onItemRangeChanged(farthestPage * mPageSize, count);
+            }
+        }
+    }
+
+    private static synchronized Executor getDefaultLoadExecutor() {
+        if (null == sLoadExecutor) {
+            sLoadExecutor = Executors.newFixedThreadPool(2);
+        }
+        return sLoadExecutor;
+    }
+}
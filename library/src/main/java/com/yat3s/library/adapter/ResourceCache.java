@@ -0,0 +1,125 @@
+package com.yat3s.library.adapter;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.util.SparseArray;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches resolved resources of an adapter by resource id, so binding rows does not go to
+ * {@link Resources} every time. Colors and dimensions are stored as primitives, drawables
+ * as constant states so each view still gets its own drawable.
+ * <p>
+ * It clears itself on the first lookup after the configuration of the context changes, so
+ * it needs no callback which would keep the context alive.
+ */
+
+public class ResourceCache {
+    private final Context mContext;
+    private final IntIntMap mColors = new IntIntMap();
+    // Float bits of dimensions
+    private final IntIntMap mDimensions = new IntIntMap();
+    private final IntIntMap mDimensionPixelSizes = new IntIntMap();
+    private final SparseArray<ColorStateList> mColorStateLists = new SparseArray<>();
+    private final SparseArray<Drawable.ConstantState> mDrawableStates = new SparseArray<>();
+    private final Map<String, Typeface> mTypefaces = new HashMap<>();
+    // Configuration the cached resources were resolved for
+    private Configuration mConfiguration;
+
+    public ResourceCache(Context context) {
+        mContext = context;
+    }
+
+    public int getColor(int colorRes) {
+        checkConfiguration();
+        if (mColors.containsKey(colorRes)) {
+            return mColors.get(colorRes, 0);
+        }
+        int color = mContext.getResources().getColor(colorRes);
+        mColors.put(colorRes, color);
+        return color;
+    }
+
+    public ColorStateList getColorStateList(int colorRes) {
+        checkConfiguration();
+        ColorStateList colorStateList = mColorStateLists.get(colorRes);
+        if (null == colorStateList) {
+            colorStateList = mContext.getResources().getColorStateList(colorRes);
+            mColorStateLists.put(colorRes, colorStateList);
+        }
+        return colorStateList;
+    }
+
+    public float getDimension(int dimenRes) {
+        checkConfiguration();
+        if (mDimensions.containsKey(dimenRes)) {
+            return Float.intBitsToFloat(mDimensions.get(dimenRes, 0));
+        }
+        float dimension = mContext.getResources().getDimension(dimenRes);
+        mDimensions.put(dimenRes, Float.floatToIntBits(dimension));
+        return dimension;
+    }
+
+    public int getDimensionPixelSize(int dimenRes) {
+        checkConfiguration();
+        if (mDimensionPixelSizes.containsKey(dimenRes)) {
+            return mDimensionPixelSizes.get(dimenRes, 0);
+        }
+        int size = mContext.getResources().getDimensionPixelSize(dimenRes);
+        mDimensionPixelSizes.put(dimenRes, size);
+        return size;
+    }
+
+    /**
+     * @return a new drawable which shares its constant state with the cached one.
+     */
+    public Drawable getDrawable(int drawableRes) {
+        checkConfiguration();
+        Resources resources = mContext.getResources();
+        Drawable.ConstantState state = mDrawableStates.get(drawableRes);
+        if (null != state) {
+            return state.newDrawable(resources);
+        }
+        Drawable drawable = resources.getDrawable(drawableRes);
+        if (null != drawable && null != drawable.getConstantState()) {
+            mDrawableStates.put(drawableRes, drawable.getConstantState());
+        }
+        return drawable;
+    }
+
+    /**
+     * @param fontAssetPath path of the font in assets, such as "fonts/Roboto-Light.ttf"
+     */
+    public Typeface getTypeface(String fontAssetPath) {
+        checkConfiguration();
+        Typeface typeface = mTypefaces.get(fontAssetPath);
+        if (null == typeface) {
+            typeface = Typeface.createFromAsset(mContext.getAssets(), fontAssetPath);
+            mTypefaces.put(fontAssetPath, typeface);
+        }
+        return typeface;
+    }
+
+    private void checkConfiguration() {
+        Configuration configuration = mContext.getResources().getConfiguration();
+        if (null == mConfiguration || !mConfiguration.equals(configuration)) {
+            clear();
+            mConfiguration = new Configuration(configuration);
+        }
+    }
+
+    public void clear() {
+        mColors.clear();
+        mDimensions.clear();
+        mDimensionPixelSizes.clear();
+        mColorStateLists.clear();
+        mDrawableStates.clear();
+        mTypefaces.clear();
+    }
+}
@@ -0,0 +1,159 @@
+package com.yat3s.library.adapter;
+
+import java.util.Arrays;
+
+/**
+ * Sorted start positions of sections, a section starts where the section key differs from
+ * the one of previous item. A position is mapped to its section by binary search, and
+ * inserts, removals and changes only recheck the keys around the changed range.
+ * <p>
+ * It has no android dependency, so it can be built on any thread.
+ */
+
+final class SectionIndex {
+
+    interface KeySource {
+        Object getSectionKey(int position);
+    }
+
+    private int mSize;
+    private int[] mStarts = new int[16];
+    private int mSectionCount;
+
+    static SectionIndex build(int size, KeySource keySource) {
+        SectionIndex sectionIndex = new SectionIndex();
+        sectionIndex.mSize = size;
+        Object previousKey = null;
+        for (int position = 0; position < size; position++) {
+            Object key = keySource.getSectionKey(position);
+            if (position == 0 || !sameKey(previousKey, key)) {
+                sectionIndex.appendStart(position);
+            }
+            previousKey = key;
+        }
+        return sectionIndex;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    int getSectionCount() {
+        return mSectionCount;
+    }
+
+    int getSectionStart(int section) {
+        if (section < 0 || section >= mSectionCount) {
+            throw new IndexOutOfBoundsException("Section " + section + ", count " +
+                    mSectionCount);
+        }
+        return mStarts[section];
+    }
+
+    /**
+     * @return section of the position, -1 if the position is out of the list.
+     */
+    int getSectionForPosition(int position) {
+        if (position < 0 || position >= mSize) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(mStarts, 0, mSectionCount, position);
+        // Not found gives -(insertion point) - 1, the section is the one before it
+        return index >= 0 ? index : -index - 2;
+    }
+
+    boolean isSectionStart(int position) {
+        return Arrays.binarySearch(mStarts, 0, mSectionCount, position) >= 0;
+    }
+
+    /**
+     * @return false if the range does not fit the index, then it must be built again.
+     */
+    boolean onInserted(int position, int count, KeySource keySource) {
+        if (position < 0 || position > mSize) {
+            return false;
+        }
+        shiftStarts(position, count);
+        mSize += count;
+        // The item after the inserted ones may not start a section anymore
+        recheck(position, Math.min(position + count, mSize - 1), keySource);
+        return true;
+    }
+
+    boolean onRemoved(int position, int count, KeySource keySource) {
+        if (position < 0 || position + count > mSize) {
+            return false;
+        }
+        int from = lowerBound(position);
+        int to = lowerBound(position + count);
+        System.arraycopy(mStarts, to, mStarts, from, mSectionCount - to);
+        mSectionCount -= to - from;
+        shiftStarts(position + count, -count);
+        mSize -= count;
+        if (position < mSize) {
+            recheck(position, position, keySource);
+        }
+        return true;
+    }
+
+    boolean onChanged(int position, int count, KeySource keySource) {
+        if (position < 0 || position + count > mSize) {
+            return false;
+        }
+        recheck(position, Math.min(position + count, mSize - 1), keySource);
+        return true;
+    }
+
+    /**
+     * Recomputes whether each position in [first, last] starts a section.
+     */
+    private void recheck(int first, int last, KeySource keySource) {
+        if (first > last) {
+            return;
+        }
+        int from = lowerBound(first);
+        int to = lowerBound(last + 1);
+        int[] starts = new int[last - first + 1];
+        int count = 0;
+        Object previousKey = first > 0 ? keySource.getSectionKey(first - 1) : null;
+        for (int position = first; position <= last; position++) {
+            Object key = keySource.getSectionKey(position);
+            if (position == 0 || !sameKey(previousKey, key)) {
+                starts[count++] = position;
+            }
+            previousKey = key;
+        }
+        int newSectionCount = mSectionCount - (to - from) + count;
+        if (newSectionCount > mStarts.length) {
+            mStarts = Arrays.copyOf(mStarts, Math.max(newSectionCount, mStarts.length * 2));
+        }
+        System.arraycopy(mStarts, to, mStarts, from + count, mSectionCount - to);
+        System.arraycopy(starts, 0, mStarts, from, count);
+        mSectionCount = newSectionCount;
+    }
+
+    private void shiftStarts(int fromPosition, int delta) {
+        for (int i = lowerBound(fromPosition); i < mSectionCount; i++) {
+            mStarts[i] += delta;
+        }
+    }
+
+    /**
+     * @return index of the first start not smaller than position.
+     */
+    private int lowerBound(int position) {
+        int index = Arrays.binarySearch(mStarts, 0, mSectionCount, position);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private void appendStart(int position) {
+        if (mSectionCount == mStarts.length) {
+            mStarts = Arrays.copyOf(mStarts, mStarts.length * 2);
+        }
+        mStarts[mSectionCount++] = position;
+    }
+
+    private static boolean sameKey(Object lhs, Object rhs) {
+        return null == lhs ? null == rhs : lhs.equals(rhs);
+    }
+}
@@ -0,0 +1,249 @@
+package com.yat3s.library.adapter;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.List;
+
+/**
+ * Adapter whose items are grouped into sections by {@link #getSectionKey(Object)}, such as
+ * the first letter of contacts. Add a {@link StickySectionDecoration} to pin the header of
+ * the top section.
+ * <p>
+ * The section index is built on background thread when the whole data set changes, range
+ * notifications only recheck the items around the range. Positions here are data positions,
+ * header view excluded.
+ */
+
+public abstract class SectionedBaseAdapter<T> extends BaseAdapter<T> {
+    private SectionIndex mSectionIndex = SectionIndex.build(0, null);
+    // Bumped whenever the index changes, so the pinned header knows to bind again
+    private int mSectionIndexVersion;
+    private boolean isBuildingIndex;
+    // A build reads a copy of the data, changes meanwhile make it start again once done
+    private boolean isBuildRunning;
+    private boolean isBuildStale;
+    private Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private RecyclerView mRecyclerView;
+    private final SectionIndex.KeySource mDataKeySource = new SectionIndex.KeySource() {
+        @Override
+        public Object getSectionKey(int position) {
+            return SectionedBaseAdapter.this.getSectionKey(getDataSource().get(position));
+        }
+    };
+
+    public SectionedBaseAdapter(Context context) {
+        this(context, null);
+    }
+
+    public SectionedBaseAdapter(Context context, List<T> data) {
+        super(context, data);
+        registerInternalObserver(new SectionIndexUpdater());
+        isBuildingIndex = true;
+    }
+
+    /**
+     * Items next to each other with equal keys are in the same section. It is called on
+     * background thread when the index is built, so it must only read the item.
+     */
+    protected abstract Object getSectionKey(T item);
+
+    protected abstract int getSectionHeaderLayoutId();
+
+    /**
+     * @param firstItem first item of the section
+     */
+    protected abstract void bindSectionHeader(BaseViewHolder holder, T firstItem, int section);
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        mRecyclerView = recyclerView;
+        if (isBuildingIndex) {
+            buildSectionIndex();
+        }
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        mRecyclerView = null;
+    }
+
+    /**
+     * Not supported, the section index reads every item, which would load every page.
+     */
+    @Override
+    public void setPagedList(PagedList<T> pagedList) {
+        throw new UnsupportedOperationException("Paged list can not be sectioned");
+    }
+
+    /**
+     * Section api
+     */
+    public int getSectionCount() {
+        return mSectionIndex.getSectionCount();
+    }
+
+    /**
+     * @return section of the data position, -1 if it is not indexed yet.
+     */
+    public int getSectionForPosition(int position) {
+        return mSectionIndex.getSectionForPosition(position);
+    }
+
+    /**
+     * @return data position of the first item of the section.
+     */
+    public int getSectionStart(int section) {
+        return mSectionIndex.getSectionStart(section);
+    }
+
+    /**
+     * Use it to show inline section title in the first row of each section.
+     */
+    public boolean isSectionStart(int position) {
+        return mSectionIndex.isSectionStart(position);
+    }
+
+    /**
+     * @return false while the index is being built on background.
+     */
+    public boolean isSectionIndexReady() {
+        return !isBuildingIndex;
+    }
+
+    int getSectionIndexVersion() {
+        return mSectionIndexVersion;
+    }
+
+    T getSectionFirstItem(int section) {
+        return getItem(getSectionStart(section));
+    }
+
+    private void buildSectionIndex() {
+        isBuildingIndex = true;
+        if (isBuildRunning) {
+            isBuildStale = true;
+            return;
+        }
+        isBuildRunning = true;
+        isBuildStale = false;
+        final List<T> snapshot = getDataSnapshot();
+        getDiffExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final SectionIndex sectionIndex = SectionIndex.build(snapshot.size(), new
+                        SectionIndex.KeySource() {
+                            @Override
+                            public Object getSectionKey(int position) {
+                                return SectionedBaseAdapter.this.getSectionKey(snapshot.get
+                                        (position));
+                            }
+                        });
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        isBuildRunning = false;
+                        if (isBuildStale) {
+                            buildSectionIndex();
+                            return;
+                        }
+                        isBuildingIndex = false;
+                        applySectionIndex(sectionIndex);
+                    }
+                });
+            }
+        });
+    }
+
+    private void applySectionIndex(SectionIndex sectionIndex) {
+        mSectionIndex = sectionIndex;
+        mSectionIndexVersion++;
+        if (null != mRecyclerView) {
+            mRecyclerView.invalidate();
+        }
+    }
+
+    /**
+     * Only single item edits are applied to the index in place, the data matches their
+     * positions. Diff results and batches are notified in steps after the data is replaced,
+     * and header, loading view and empty view rows do not fit the data range, the index is
+     * built again for them. Changes of load more footer are ignored.
+     */
+    private class SectionIndexUpdater extends RecyclerView.AdapterDataObserver {
+        @Override
+        public void onChanged() {
+            buildSectionIndex();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            if (positionStart - getHeaderViewCount() >= getDataSource().size()) {
+                // Load more footer, no item changed
+                return;
+            }
+            if (canUpdateInPlace() && mSectionIndex.onChanged(positionStart -
+                    getHeaderViewCount(), itemCount, mDataKeySource)) {
+                onUpdatedInPlace();
+            } else {
+                buildSectionIndex();
+            }
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            onItemRangeChanged(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            if (canUpdateInPlace() && mSectionIndex.onInserted(positionStart -
+                    getHeaderViewCount(), itemCount, mDataKeySource)) {
+                onUpdatedInPlace();
+            } else {
+                buildSectionIndex();
+            }
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            if (canUpdateInPlace() && mSectionIndex.onRemoved(positionStart -
+                    getHeaderViewCount(), itemCount, mDataKeySource)) {
+                onUpdatedInPlace();
+            } else {
+                buildSectionIndex();
+            }
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            int from = fromPosition - getHeaderViewCount();
+            int to = toPosition - getHeaderViewCount();
+            // A move is a removal and an insert of one item, keys are read from the data
+            // after the move, so the moved span is checked again at last
+            if (canUpdateInPlace() && itemCount == 1 && mSectionIndex.onRemoved(from, 1,
+                    mDataKeySource) && mSectionIndex.onInserted(to, 1, mDataKeySource) &&
+                    mSectionIndex.onChanged(Math.min(from, to), Math.abs(from - to) + 1,
+                            mDataKeySource)) {
+                onUpdatedInPlace();
+            } else {
+                buildSectionIndex();
+            }
+        }
+
+        private boolean canUpdateInPlace() {
+            return !isBuildingIndex && isNotifyingEdit();
+        }
+
+        private void onUpdatedInPlace() {
+            if (mSectionIndex.size() != getDataSource().size()) {
+                buildSectionIndex();
+            } else {
+                mSectionIndexVersion++;
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.yat3s.library.adapter;
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * A view pool shared by several {@link BaseAdapter}, such as tabs of a ViewPager or nested
+ * carousels, so a holder inflated by one list can be reused by the others.
+ * <p>
+ * Holders keep their views, so keep the pool in the screen which owns the lists instead of
+ * a static field.
+ */
+
+public class SharedViewPool extends RecyclerView.RecycledViewPool {
+    public SharedViewPool() {
+    }
+
+    /**
+     * @param layoutId item layout id returned by getItemViewLayoutId
+     * @param max      max number of idle holders of the layout kept in the pool
+     */
+    public SharedViewPool setMaxRecycledViewsOfLayout(int layoutId, int max) {
+        setMaxRecycledViews(ViewTypeRegistry.getViewType(layoutId), max);
+        return this;
+    }
+}
@@ -0,0 +1,92 @@
+package com.yat3s.library.adapter;
+
+import android.graphics.Canvas;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Pins the header of the top section of a {@link SectionedBaseAdapter} over the list, the
+ * first row of next section pushes it up. One header view is inflated and it is only bound
+ * again when the top section changes.
+ */
+
+public class StickySectionDecoration extends RecyclerView.ItemDecoration {
+    private final SectionedBaseAdapter<?> mAdapter;
+    private BaseViewHolder mHeaderHolder;
+    private int mBoundSection = -1;
+    private int mBoundVersion = -1;
+    private int mMeasuredWidth = -1;
+
+    public StickySectionDecoration(SectionedBaseAdapter<?> adapter) {
+        mAdapter = adapter;
+    }
+
+    @Override
+    public void onDrawOver(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+        if (parent.getChildCount() == 0 || mAdapter.getSectionCount() == 0) {
+            return;
+        }
+        int headerViewCount = mAdapter.getHeaderViewCount();
+        int adapterPosition = mAdapter.getAdapterPosition(parent.getChildViewHolder(parent
+                .getChildAt(0)));
+        int section = adapterPosition == RecyclerView.NO_POSITION ? -1 : mAdapter
+                .getSectionForPosition(adapterPosition - headerViewCount);
+        if (section < 0) {
+            return;
+        }
+        View headerView = getHeaderView(parent, section);
+        int offset = 0;
+        if (section + 1 < mAdapter.getSectionCount()) {
+            int nextStart = mAdapter.getSectionStart(section + 1) + headerViewCount;
+            for (int i = 1; i < parent.getChildCount(); i++) {
+                View child = parent.getChildAt(i);
+                if (mAdapter.getAdapterPosition(parent.getChildViewHolder(child)) == nextStart) {
+                    offset = Math.min(0, child.getTop() - parent.getPaddingTop() - headerView
+                            .getHeight());
+                    break;
+                }
+            }
+        }
+        int saveCount = canvas.save();
+        canvas.translate(parent.getPaddingLeft(), parent.getPaddingTop() + offset);
+        headerView.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    private View getHeaderView(RecyclerView parent, int section) {
+        if (null == mHeaderHolder) {
+            View headerView = LayoutInflater.from(parent.getContext()).inflate(mAdapter
+                    .getSectionHeaderLayoutId(), parent, false);
+            mHeaderHolder = new BaseViewHolder(headerView, parent.getContext());
+        }
+        int width = parent.getWidth() - parent.getPaddingLeft() - parent.getPaddingRight();
+        boolean rebind = section != mBoundSection || mBoundVersion != mAdapter
+                .getSectionIndexVersion();
+        if (rebind) {
+            bindSectionHeader(section);
+            mBoundSection = section;
+            mBoundVersion = mAdapter.getSectionIndexVersion();
+        }
+        if (rebind || width != mMeasuredWidth) {
+            View headerView = mHeaderHolder.itemView;
+            ViewGroup.LayoutParams layoutParams = headerView.getLayoutParams();
+            int heightSpec = layoutParams.height >= 0 ? View.MeasureSpec.makeMeasureSpec
+                    (layoutParams.height, View.MeasureSpec.EXACTLY) : View.MeasureSpec
+                    .makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+            headerView.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec
+                    .EXACTLY), heightSpec);
+            headerView.layout(0, 0, headerView.getMeasuredWidth(), headerView
+                    .getMeasuredHeight());
+            mMeasuredWidth = width;
+        }
+        return mHeaderHolder.itemView;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void bindSectionHeader(int section) {
+        SectionedBaseAdapter<Object> adapter = (SectionedBaseAdapter<Object>) mAdapter;
+        adapter.bindSectionHeader(mHeaderHolder, adapter.getSectionFirstItem(section), section);
+    }
+}
@@ -0,0 +1,301 @@
+package com.yat3s.library.adapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Records update operations and coalesces them into the smallest equivalent set.
+ * <p>
+ * The list is kept as pieces, a piece is either a range of the original rows or a range of
+ * inserted rows, so recording is O(pieces) instead of O(rows). Removing inserted rows cancels
+ * them, and changes of inserted rows are dropped because they will be bound anyway.
+ */
+
+final class UpdateBatch implements ListUpdateCallback {
+    private final List<Piece> mPieces = new ArrayList<>();
+    private final int mOldSize;
+
+    UpdateBatch(int oldSize) {
+        mOldSize = oldSize;
+        if (oldSize > 0) {
+            mPieces.add(Piece.original(0, oldSize));
+        }
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+        if (count <= 0) {
+            return;
+        }
+        mPieces.add(splitAt(position), Piece.inserted(count));
+        compact();
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        if (count <= 0) {
+            return;
+        }
+        int start = splitAt(position);
+        int end = splitAt(position + count);
+        mPieces.subList(start, end).clear();
+        compact();
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        if (fromPosition == toPosition) {
+            return;
+        }
+        int index = splitAt(fromPosition);
+        splitAt(fromPosition + 1);
+        Piece piece = mPieces.remove(index);
+        mPieces.add(splitAt(toPosition), piece);
+        compact();
+    }
+
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+        if (count <= 0) {
+            return;
+        }
+        int start = splitAt(position);
+        int end = splitAt(position + count);
+        for (int i = start; i < end; i++) {
+            mPieces.get(i).markChanged(payload);
+        }
+        compact();
+    }
+
+    boolean isEmpty() {
+        if (mPieces.isEmpty()) {
+            return mOldSize == 0;
+        }
+        Piece piece = mPieces.get(0);
+        return mPieces.size() == 1 && !piece.inserted && !piece.changed && piece.count == mOldSize;
+    }
+
+    /**
+     * Dispatches removals from the end, then moves, then insertions and changes in final
+     * positions.
+     */
+    void dispatchUpdatesTo(ListUpdateCallback callback) {
+        List<Piece> targetOrder = new ArrayList<>();
+        for (Piece piece : mPieces) {
+            if (!piece.inserted) {
+                targetOrder.add(piece);
+            }
+        }
+        List<Piece> currentOrder = new ArrayList<>(targetOrder);
+        Collections.sort(currentOrder, new Comparator<Piece>() {
+            @Override
+            public int compare(Piece lhs, Piece rhs) {
+                return lhs.oldStart - rhs.oldStart;
+            }
+        });
+
+        dispatchRemovals(callback, currentOrder);
+        dispatchMoves(callback, targetOrder, currentOrder);
+
+        int position = 0;
+        for (Piece piece : mPieces) {
+            if (piece.inserted) {
+                callback.onInserted(position, piece.count);
+            }
+            position += piece.count;
+        }
+
+        // A change run may cover inserted rows, they will be bound anyway
+        position = 0;
+        int runStart = -1, runEnd = -1;
+        Object runPayload = null;
+        for (Piece piece : mPieces) {
+            if (piece.changed) {
+                if (runStart < 0 || !samePayload(runPayload, piece.payload)) {
+                    dispatchChangeRun(callback, runStart, runEnd, runPayload);
+                    runStart = position;
+                    runPayload = piece.payload;
+                }
+                runEnd = position + piece.count;
+            } else if (!piece.inserted) {
+                dispatchChangeRun(callback, runStart, runEnd, runPayload);
+                runStart = -1;
+            }
+            position += piece.count;
+        }
+        dispatchChangeRun(callback, runStart, runEnd, runPayload);
+    }
+
+    private static void dispatchChangeRun(ListUpdateCallback callback, int runStart, int runEnd,
+                                          Object runPayload) {
+        if (runStart >= 0) {
+            callback.onChanged(runStart, runEnd - runStart, runPayload);
+        }
+    }
+
+    private void dispatchRemovals(ListUpdateCallback callback, List<Piece> kept) {
+        int end = mOldSize;
+        for (int i = kept.size() - 1; i >= -1; i--) {
+            int start = i >= 0 ? kept.get(i).oldStart + kept.get(i).count : 0;
+            if (end > start) {
+                callback.onRemoved(start, end - start);
+            }
+            end = i >= 0 ? kept.get(i).oldStart : 0;
+        }
+    }
+
+    /**
+     * Pieces on the heaviest increasing subsequence stay, every other piece is moved right
+     * behind its predecessor in target order.
+     */
+    private void dispatchMoves(ListUpdateCallback callback, List<Piece> targetOrder,
+                               List<Piece> currentOrder) {
+        boolean[] stay = heaviestIncreasingSubsequence(targetOrder);
+        for (int i = 0; i < targetOrder.size(); i++) {
+            if (stay[i]) {
+                continue;
+            }
+            Piece piece = targetOrder.get(i);
+            int from = positionOf(currentOrder, currentOrder.indexOf(piece));
+            currentOrder.remove(piece);
+            int index = i == 0 ? 0 : currentOrder.indexOf(targetOrder.get(i - 1)) + 1;
+            int to = positionOf(currentOrder, index);
+            currentOrder.add(index, piece);
+            for (int k = 0; k < piece.count; k++) {
+                if (to < from) {
+                    callback.onMoved(from + k, to + k);
+                } else {
+                    callback.onMoved(from, to + piece.count - 1);
+                }
+            }
+        }
+    }
+
+    private static boolean[] heaviestIncreasingSubsequence(List<Piece> pieces) {
+        int size = pieces.size();
+        int[] weight = new int[size];
+        int[] previous = new int[size];
+        int best = -1;
+        for (int i = 0; i < size; i++) {
+            weight[i] = pieces.get(i).count;
+            previous[i] = -1;
+            for (int j = 0; j < i; j++) {
+                if (pieces.get(j).oldStart < pieces.get(i).oldStart
+                        && weight[j] + pieces.get(i).count > weight[i]) {
+                    weight[i] = weight[j] + pieces.get(i).count;
+                    previous[i] = j;
+                }
+            }
+            if (best < 0 || weight[i] > weight[best]) {
+                best = i;
+            }
+        }
+        boolean[] stay = new boolean[size];
+        for (int i = best; i >= 0; i = previous[i]) {
+            stay[i] = true;
+        }
+        return stay;
+    }
+
+    private static int positionOf(List<Piece> pieces, int index) {
+        int position = 0;
+        for (int i = 0; i < index; i++) {
+            position += pieces.get(i).count;
+        }
+        return position;
+    }
+
+    /**
+     * @return index of the piece which starts at position, the piece covering it is split.
+     */
+    private int splitAt(int position) {
+        int start = 0;
+        for (int i = 0; i < mPieces.size(); i++) {
+            Piece piece = mPieces.get(i);
+            if (position == start) {
+                return i;
+            }
+            if (position < start + piece.count) {
+                mPieces.add(i + 1, piece.splitAt(position - start));
+                return i + 1;
+            }
+            start += piece.count;
+        }
+        if (position != start) {
+            throw new IndexOutOfBoundsException("Position " + position + " is out of size " +
+                    start);
+        }
+        return mPieces.size();
+    }
+
+    private void compact() {
+        for (int i = mPieces.size() - 1; i > 0; i--) {
+            Piece previous = mPieces.get(i - 1);
+            if (previous.canMerge(mPieces.get(i))) {
+                previous.count += mPieces.remove(i).count;
+            }
+        }
+    }
+
+    private static boolean samePayload(Object lhs, Object rhs) {
+        return null == lhs ? null == rhs : lhs.equals(rhs);
+    }
+
+    private static class Piece {
+        final boolean inserted;
+        int oldStart;
+        int count;
+        boolean changed;
+        Object payload;
+
+        private Piece(boolean inserted, int oldStart, int count) {
+            this.inserted = inserted;
+            this.oldStart = oldStart;
+            this.count = count;
+        }
+
+        static Piece original(int oldStart, int count) {
+            return new Piece(false, oldStart, count);
+        }
+
+        static Piece inserted(int count) {
+            return new Piece(true, -1, count);
+        }
+
+        /**
+         * Keeps the first offset rows and returns the rest as a new piece.
+         */
+        Piece splitAt(int offset) {
+            Piece rest = new Piece(inserted, inserted ? -1 : oldStart + offset, count - offset);
+            rest.changed = changed;
+            rest.payload = payload;
+            count = offset;
+            return rest;
+        }
+
+        void markChanged(Object newPayload) {
+            if (inserted) {
+                return;
+            }
+            if (!changed) {
+                changed = true;
+                payload = newPayload;
+            } else if (payload instanceof ChangePayload && newPayload instanceof ChangePayload) {
+                payload = ((ChangePayload) payload).merge((ChangePayload) newPayload);
+            } else if (!samePayload(payload, newPayload)) {
+                // Different partial changes, fall back to a full bind
+                payload = null;
+            }
+        }
+
+        boolean canMerge(Piece next) {
+            if (inserted || next.inserted) {
+                return inserted && next.inserted;
+            }
+            return oldStart + count == next.oldStart && changed == next.changed
+                    && samePayload(payload, next.payload);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.yat3s.library.adapter;
+
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Slots of the views which have an id in an item layout, in depth-first order. It is built
+ * once per layout from the first inflated tree, then every holder of the layout fills its
+ * views by walking its own tree once instead of calling findViewById for each id.
+ */
+
+final class ViewIdIndex {
+    private static final int NO_SLOT = -1;
+    private static final SparseArray<ViewIdIndex> sIndexes = new SparseArray<>();
+
+    // Id of each slot
+    private final int[] mIds;
+    // Id to its first slot, same as findViewById which returns the first match
+    private final IntIntMap mSlots;
+
+    private ViewIdIndex(int[] ids) {
+        mIds = ids;
+        mSlots = new IntIntMap(ids.length);
+        for (int slot = ids.length - 1; slot >= 0; slot--) {
+            mSlots.put(ids[slot], slot);
+        }
+    }
+
+    static synchronized ViewIdIndex obtain(int layoutId, View itemView) {
+        ViewIdIndex index = sIndexes.get(layoutId);
+        if (null == index) {
+            int[] ids = new int[countIds(itemView)];
+            collectIds(itemView, ids, 0);
+            index = new ViewIdIndex(ids);
+            sIndexes.put(layoutId, index);
+        }
+        return index;
+    }
+
+    int size() {
+        return mIds.length;
+    }
+
+    int slotOf(int id) {
+        return mSlots.get(id, NO_SLOT);
+    }
+
+    /**
+     * @return false if the tree is not the same as the indexed layout, such as a view added
+     * after inflating.
+     */
+    boolean fill(View itemView, View[] views) {
+        return fill(itemView, views, 0) == mIds.length;
+    }
+
+    private int fill(View view, View[] views, int slot) {
+        if (slot < 0) {
+            return slot;
+        }
+        if (view.getId() != View.NO_ID) {
+            if (slot >= mIds.length || mIds[slot] != view.getId()) {
+                return NO_SLOT;
+            }
+            views[slot++] = view;
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                slot = fill(group.getChildAt(i), views, slot);
+            }
+        }
+        return slot;
+    }
+
+    private static int countIds(View view) {
+        int count = view.getId() != View.NO_ID ? 1 : 0;
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                count += countIds(group.getChildAt(i));
+            }
+        }
+        return count;
+    }
+
+    private static int collectIds(View view, int[] ids, int slot) {
+        if (view.getId() != View.NO_ID) {
+            ids[slot++] = view.getId();
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                slot = collectIds(group.getChildAt(i), ids, slot);
+            }
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,128 @@
+package com.yat3s.library.adapter;
+
+import android.content.Context;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Inflates item views on a background thread before they are needed and keeps them in a
+ * bounded cache per view type, {@link BaseAdapter} takes views from here before inflating
+ * on main thread.
+ */
+
+final class ViewPreInflater {
+    private static final String TAG = "ViewPreInflater";
+
+    private static Executor sInflateExecutor;
+
+    // Only used on the inflate thread, LayoutInflater is not thread safe
+    private final LayoutInflater mInflater;
+    private final SparseArray<ArrayDeque<View>> mCachedViews = new SparseArray<>();
+    private final SparseIntArray mCapacities = new SparseIntArray();
+    private int mHitCount, mMissCount;
+
+    ViewPreInflater(Context context) {
+        mInflater = LayoutInflater.from(context).cloneInContext(context);
+    }
+
+    /**
+     * @param parent used to generate layout params of the views, it is not attached to.
+     */
+    void prewarm(final int layoutId, final ViewGroup parent, int count) {
+        final int viewType = ViewTypeRegistry.getViewType(layoutId);
+        synchronized (this) {
+            mCapacities.put(viewType, Math.max(count, mCapacities.get(viewType)));
+        }
+        getInflateExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                while (needMoreViews(viewType)) {
+                    View view;
+                    try {
+                        view = mInflater.inflate(layoutId, parent, false);
+                    } catch (RuntimeException e) {
+                        // Some views can only be created on main thread, inflate them there
+                        Log.w(TAG, "Failed to inflate layout " + layoutId + " on background", e);
+                        return;
+                    }
+                    offer(viewType, view);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return a pre-inflated view or null, then you need to inflate it by yourself.
+     */
+    View obtain(int viewType) {
+        View view = null;
+        synchronized (this) {
+            ArrayDeque<View> views = mCachedViews.get(viewType);
+            if (null != views) {
+                view = views.pollFirst();
+            }
+        }
+        if (null != view) {
+            mHitCount++;
+        } else {
+            mMissCount++;
+        }
+        return view;
+    }
+
+    int getHitCount() {
+        return mHitCount;
+    }
+
+    int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Drops cached views and stops prewarming, a view being inflated is dropped too.
+     */
+    synchronized void clear() {
+        mCachedViews.clear();
+        mCapacities.clear();
+    }
+
+    private synchronized boolean needMoreViews(int viewType) {
+        ArrayDeque<View> views = mCachedViews.get(viewType);
+        return (null == views ? 0 : views.size()) < mCapacities.get(viewType);
+    }
+
+    private synchronized void offer(int viewType, View view) {
+        if (!needMoreViews(viewType)) {
+            return;
+        }
+        ArrayDeque<View> views = mCachedViews.get(viewType);
+        if (null == views) {
+            views = new ArrayDeque<>();
+            mCachedViews.put(viewType, views);
+        }
+        views.offerLast(view);
+    }
+
+    private static synchronized Executor getInflateExecutor() {
+        if (null == sInflateExecutor) {
+            sInflateExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "BaseAdapter-inflate");
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        }
+        return sInflateExecutor;
+    }
+}
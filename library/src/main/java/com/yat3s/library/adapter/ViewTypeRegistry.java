@@ -0,0 +1,42 @@
+package com.yat3s.library.adapter;
+
+/**
+ * Process-wide mapping between item layout id and view type, so every {@link BaseAdapter}
+ * gives the same layout the same view type and they can share a {@link SharedViewPool}.
+ */
+
+public final class ViewTypeRegistry {
+    private static final int FIRST_VIEW_TYPE = 0x0108;
+    private static final int NO_VALUE = 0;
+
+    private static final IntIntMap sViewTypeMap = new IntIntMap();
+    private static final IntIntMap sLayoutIdMap = new IntIntMap();
+    private static int sCurrentViewTypeValue = FIRST_VIEW_TYPE - 1;
+
+    private ViewTypeRegistry() {
+    }
+
+    /**
+     * @return stable view type of the layout, it is registered on first call.
+     */
+    public static synchronized int getViewType(int layoutId) {
+        int viewType = sViewTypeMap.get(layoutId, NO_VALUE);
+        if (viewType == NO_VALUE) {
+            viewType = ++sCurrentViewTypeValue;
+            sViewTypeMap.put(layoutId, viewType);
+            sLayoutIdMap.put(viewType, layoutId);
+        }
+        return viewType;
+    }
+
+    /**
+     * @return layout id of a registered view type.
+     */
+    public static synchronized int getLayoutId(int viewType) {
+        int layoutId = sLayoutIdMap.get(viewType, NO_VALUE);
+        if (layoutId == NO_VALUE) {
+            throw new IllegalArgumentException("View type " + viewType + " is not registered!");
+        }
+        return layoutId;
+    }
+}
@@ -0,0 +1,129 @@
+package com.yat3s.library.adapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChangeQueueTest {
+
+    @Test
+    public void drain_appliesChangesInPostedOrder() throws Exception {
+        ChangeQueue<String> changeQueue = new ChangeQueue<>();
+        ListTarget target = new ListTarget();
+        assertTrue(changeQueue.insert(ChangeQueue.APPEND, "a"));
+        // A drain is already scheduled
+        assertFalse(changeQueue.insert(ChangeQueue.APPEND, "c"));
+        assertFalse(changeQueue.insert(1, "b"));
+        assertFalse(changeQueue.update(0, "A"));
+        assertFalse(changeQueue.remove(2));
+
+        assertFalse(changeQueue.drain(target, Long.MAX_VALUE));
+        assertEquals(list("A", "b"), target.mItems);
+        assertTrue(changeQueue.isEmpty());
+        // Drained, so the next producer schedules again
+        assertTrue(changeQueue.remove(0));
+    }
+
+    @Test
+    public void drain_leavesRestForNextDrainWhenBudgetIsUsedUp() throws Exception {
+        ChangeQueue<String> changeQueue = new ChangeQueue<>();
+        ListTarget target = new ListTarget();
+        for (int i = 0; i < 40; i++) {
+            changeQueue.insert(ChangeQueue.APPEND, "item " + i);
+        }
+        int drains = 1;
+        while (changeQueue.drain(target, 0)) {
+            drains++;
+        }
+        assertEquals(3, drains);
+        assertEquals(40, target.mItems.size());
+        assertEquals("item 39", target.mItems.get(39));
+    }
+
+    @Test
+    public void producers_neverLoseChanges() throws Exception {
+        final ChangeQueue<String> changeQueue = new ChangeQueue<>();
+        final int producerCount = 4, changesPerProducer = 20000;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final AtomicInteger scheduleCount = new AtomicInteger();
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < producerCount; p++) {
+            final int producer = p;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < changesPerProducer; i++) {
+                        if (changeQueue.insert(ChangeQueue.APPEND, producer + ":" + i)) {
+                            scheduleCount.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        ListTarget target = new ListTarget();
+        startLatch.countDown();
+        boolean producing = true;
+        while (producing || !changeQueue.isEmpty()) {
+            producing = false;
+            for (Thread thread : producers) {
+                producing |= thread.isAlive();
+            }
+            changeQueue.drain(target, 100000);
+        }
+
+        assertEquals(producerCount * changesPerProducer, target.mItems.size());
+        assertTrue(scheduleCount.get() >= 1);
+        // Changes of each producer keep their order
+        int[] next = new int[producerCount];
+        for (String item : target.mItems) {
+            String[] parts = item.split(":");
+            int producer = Integer.parseInt(parts[0]);
+            assertEquals(next[producer]++, Integer.parseInt(parts[1]));
+        }
+    }
+
+    private static List<String> list(String... items) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, items);
+        return list;
+    }
+
+    private static class ListTarget implements ChangeQueue.Target<String> {
+        final List<String> mItems = new ArrayList<>();
+
+        @Override
+        public int size() {
+            return mItems.size();
+        }
+
+        @Override
+        public void insert(int index, String item) {
+            mItems.add(index, item);
+        }
+
+        @Override
+        public void update(int index, String item) {
+            mItems.set(index, item);
+        }
+
+        @Override
+        public void remove(int index) {
+            mItems.remove(index);
+        }
+    }
+}
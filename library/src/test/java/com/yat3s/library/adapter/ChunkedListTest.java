@@ -0,0 +1,121 @@
+package com.yat3s.library.adapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkedListTest {
+
+    @Test
+    public void append_keepsLeavesFull() throws Exception {
+        ChunkedList<Integer> list = new ChunkedList<>();
+        int count = ChunkedList.NODE_CAPACITY * ChunkedList.NODE_CAPACITY;
+        for (int i = 0; i < count; i++) {
+            list.add(i);
+        }
+        assertEquals(count, list.size());
+        // Full leaves fit in one full branch
+        assertEquals(2, list.height());
+        list.add(count);
+        assertEquals(3, list.height());
+        for (int i = 0; i <= count; i++) {
+            assertEquals(i, (int) list.get(i));
+        }
+    }
+
+    @Test
+    public void headInsertsAndRemovals_matchArrayList() throws Exception {
+        ChunkedList<Integer> list = new ChunkedList<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            list.add(0, i);
+            expected.add(0, i);
+        }
+        assertEquals(expected, list);
+        for (int i = 0; i < 19990; i++) {
+            assertEquals(expected.remove(0), list.remove(0));
+        }
+        assertEquals(expected, list);
+        assertEquals(1, list.height());
+    }
+
+    @Test
+    public void randomOperations_matchArrayList() throws Exception {
+        Random random = new Random(7);
+        ChunkedList<Integer> list = new ChunkedList<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int round = 0; round < 50000; round++) {
+            int op = random.nextInt(10);
+            if (op < 4 || expected.isEmpty()) {
+                int index = random.nextInt(expected.size() + 1);
+                list.add(index, round);
+                expected.add(index, round);
+            } else if (op < 7) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), list.remove(index));
+            } else if (op < 9) {
+                int from = random.nextInt(expected.size());
+                int to = random.nextInt(expected.size());
+                list.move(from, to);
+                expected.add(to, expected.remove(from));
+            } else {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.set(index, -round), list.set(index, -round));
+            }
+            assertEquals(expected.size(), list.size());
+        }
+        assertEquals(expected, list);
+        list.subList(10, 200).clear();
+        expected.subList(10, 200).clear();
+        assertEquals(expected, list);
+        Iterator<Integer> iterator = expected.iterator();
+        for (Integer item : list) {
+            assertEquals(iterator.next(), item);
+        }
+        assertTrue(list.height() <= 4);
+    }
+
+    @Test
+    public void snapshots_keepTheirVersionWhileListChanges() throws Exception {
+        Random random = new Random(11);
+        ChunkedList<Integer> list = new ChunkedList<>();
+        for (int i = 0; i < 10000; i++) {
+            list.add(i);
+        }
+        List<List<Integer>> snapshots = new ArrayList<>();
+        List<List<Integer>> expectedSnapshots = new ArrayList<>();
+        for (int round = 0; round < 20000; round++) {
+            if (round % 1000 == 0) {
+                snapshots.add(list.snapshot());
+                expectedSnapshots.add(new ArrayList<>(list));
+            }
+            int op = random.nextInt(4);
+            int index = random.nextInt(list.size());
+            if (op == 0) {
+                list.add(index, -round);
+            } else if (op == 1) {
+                list.remove(index);
+            } else if (op == 2) {
+                list.move(index, random.nextInt(list.size()));
+            } else {
+                list.set(index, round);
+            }
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(expectedSnapshots.get(i), snapshots.get(i));
+        }
+        boolean readOnly = false;
+        try {
+            snapshots.get(0).add(1);
+        } catch (UnsupportedOperationException e) {
+            readOnly = true;
+        }
+        assertTrue(readOnly);
+    }
+}
@@ -0,0 +1,22 @@
+package com.yat3s.library.adapter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ImageLoaderTest {
+
+    @Test
+    public void inSampleSize_keepsBothSidesAboveTarget() throws Exception {
+        assertEquals(1, ImageLoader.calculateInSampleSize(400, 300, 300));
+        assertEquals(2, ImageLoader.calculateInSampleSize(4000, 700, 300));
+        assertEquals(8, ImageLoader.calculateInSampleSize(4000, 3000, 300));
+        assertEquals(16, ImageLoader.calculateInSampleSize(4096, 4096, 256));
+    }
+
+    @Test
+    public void inSampleSize_ignoresInvalidTarget() throws Exception {
+        assertEquals(1, ImageLoader.calculateInSampleSize(4000, 3000, 0));
+        assertEquals(1, ImageLoader.calculateInSampleSize(100, 100, 300));
+    }
+}
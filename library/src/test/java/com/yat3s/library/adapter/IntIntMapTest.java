@@ -0,0 +1,73 @@
+package com.yat3s.library.adapter;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntIntMapTest {
+
+    @Test
+    public void zeroKey_isSupported() throws Exception {
+        IntIntMap map = new IntIntMap();
+        assertFalse(map.containsKey(0));
+        map.put(0, 7);
+        assertTrue(map.containsKey(0));
+        assertEquals(7, map.get(0, -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void randomPuts_matchHashMap() throws Exception {
+        Random random = new Random(42);
+        IntIntMap map = new IntIntMap(2);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            // Resource id like keys, they only differ in low bits
+            int key = 0x7f030000 + random.nextInt(3000);
+            int value = random.nextInt();
+            map.put(key, value);
+            expected.put(key, value);
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey(), -1));
+        }
+        assertEquals(-1, map.get(0x7f040000, -1));
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(0x7f030001));
+    }
+
+    @Test
+    public void randomRemoves_matchHashMap() throws Exception {
+        Random random = new Random(7);
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                map.remove(key);
+                expected.remove(key);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 500; key++) {
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+            if (expected.containsKey(key)) {
+                assertEquals((int) expected.get(key), map.get(key, -1));
+            }
+        }
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(0x7f030001));
+    }
+}
@@ -0,0 +1,54 @@
+package com.yat3s.library.adapter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ItemAnimationSchedulerTest {
+
+    @Test
+    public void idleRows_cascadeWithinSlotLimit() throws Exception {
+        ItemAnimationScheduler scheduler = new ItemAnimationScheduler(2000);
+        scheduler.setStaggerDelay(50);
+        scheduler.setMaxConcurrentAnimations(2);
+        long now = 1000;
+        assertEquals(0, scheduler.schedule(300, now));
+        assertEquals(50, scheduler.schedule(300, now));
+        // Both slots are busy until the first animation ends
+        assertEquals(300, scheduler.schedule(300, now));
+        assertEquals(350, scheduler.schedule(300, now));
+        scheduler.endCascade();
+        assertEquals(600, scheduler.schedule(300, now));
+    }
+
+    @Test
+    public void fastScroll_skipsOrShortens() throws Exception {
+        ItemAnimationScheduler scheduler = new ItemAnimationScheduler(2000);
+        scheduler.onScrollStateChanged(false);
+        long now = 1000;
+        // 20 px per frame is 1250 px per second
+        for (int i = 0; i < 10; i++) {
+            scheduler.onScrolled(0, 20, now += 16);
+        }
+        assertEquals(150, scheduler.scaleDuration(300, now));
+        for (int i = 0; i < 10; i++) {
+            scheduler.onScrolled(0, 80, now += 16);
+        }
+        assertEquals(ItemAnimationScheduler.SKIP, scheduler.scaleDuration(300, now));
+        // Velocity drops when scroll events stop
+        assertEquals(300, scheduler.scaleDuration(300, now + 500));
+    }
+
+    @Test
+    public void scrolling_skipsWhenNoSlotIsFree() throws Exception {
+        ItemAnimationScheduler scheduler = new ItemAnimationScheduler(0);
+        scheduler.setMaxConcurrentAnimations(1);
+        scheduler.onScrollStateChanged(false);
+        long now = 1000;
+        scheduler.onScrolled(0, 1, now);
+        assertEquals(0, scheduler.schedule(300, now));
+        assertEquals(ItemAnimationScheduler.SKIP, scheduler.schedule(300, now + 10));
+        scheduler.onScrolled(0, 1, now + 300);
+        assertEquals(0, scheduler.schedule(300, now + 300));
+    }
+}
@@ -0,0 +1,91 @@
+package com.yat3s.library.adapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ItemHeightIndexTest {
+
+    @Test
+    public void unmeasuredRows_useEstimateOfTheirType() throws Exception {
+        ItemHeightIndex index = new ItemHeightIndex(50);
+        index.reset(4);
+        assertEquals(200, index.getTotalHeight());
+        index.record(0, 1, 100);
+        // Type of the others is unknown, they use the average of all rows
+        assertEquals(400, index.getTotalHeight());
+        index.record(1, 2, 20);
+        index.setViewType(2, 2);
+        assertEquals(100 + 20 + 20 + 60, index.getTotalHeight());
+        assertEquals(120, index.getOffset(2));
+        assertEquals(1, index.getPosition(100));
+        assertEquals(2, index.getPosition(139));
+        assertEquals(3, index.getPosition(10000));
+    }
+
+    @Test
+    public void randomUpdates_matchNaiveModel() throws Exception {
+        Random random = new Random(7);
+        ItemHeightIndex index = new ItemHeightIndex(40);
+        List<int[]> rows = new ArrayList<>();
+        for (int round = 0; round < 3000; round++) {
+            int op = random.nextInt(6);
+            if (op == 0 || rows.isEmpty()) {
+                int position = random.nextBoolean() ? rows.size() : random.nextInt(rows.size()
+                        + 1);
+                int count = 1 + random.nextInt(3);
+                for (int i = 0; i < count; i++) {
+                    rows.add(position, new int[]{-1, 0});
+                }
+                index.onInserted(position, count);
+            } else if (op == 1) {
+                int position = random.nextInt(rows.size());
+                int count = 1 + random.nextInt(Math.min(3, rows.size() - position));
+                for (int i = 0; i < count; i++) {
+                    rows.remove(position);
+                }
+                index.onRemoved(position, count);
+            } else if (op == 2) {
+                int from = random.nextInt(rows.size());
+                int to = random.nextInt(rows.size());
+                rows.add(to, rows.remove(from));
+                index.onMoved(from, to);
+            } else if (op == 3) {
+                int position = random.nextInt(rows.size());
+                rows.get(position)[0] = -1;
+                index.onChanged(position, 1);
+            } else {
+                int position = random.nextInt(rows.size());
+                int type = 1 + random.nextInt(3);
+                // Each type has its own fixed height, so estimates of types are exact
+                rows.get(position)[0] = type * 30;
+                rows.get(position)[1] = type;
+                index.record(position, type, type * 30);
+            }
+            assertMatches(index, rows);
+        }
+    }
+
+    private static void assertMatches(ItemHeightIndex index, List<int[]> rows) {
+        assertEquals(rows.size(), index.size());
+        long offset = 0;
+        for (int position = 0; position < rows.size(); position++) {
+            assertEquals(offset, index.getOffset(position));
+            int height = index.getHeight(position);
+            int[] row = rows.get(position);
+            if (row[0] >= 0) {
+                assertEquals(row[0], height);
+            }
+            if (height > 0) {
+                assertEquals(position, index.getPosition(offset));
+                assertEquals(position, index.getPosition(offset + height - 1));
+            }
+            offset += height;
+        }
+        assertEquals(offset, index.getTotalHeight());
+    }
+}
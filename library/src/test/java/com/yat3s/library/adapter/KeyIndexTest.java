@@ -0,0 +1,80 @@
+package com.yat3s.library.adapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeyIndexTest {
+
+    @Test
+    public void unloadedItems_areSkipped() throws Exception {
+        List<Long> keys = new ArrayList<>();
+        keys.add(5L);
+        keys.add(null);
+        keys.add(7L);
+        KeyIndex keyIndex = new KeyIndex(keys.size());
+        assertEquals(2, keyIndex.positionOf(7, keysOf(keys)));
+        assertEquals(-1, keyIndex.positionOf(6, keysOf(keys)));
+        keys.set(1, 6L);
+        keyIndex.onChanged(1, 1, keysOf(keys));
+        assertEquals(1, keyIndex.positionOf(6, keysOf(keys)));
+    }
+
+    @Test
+    public void randomEdits_matchLinearSearch() throws Exception {
+        Random random = new Random(5);
+        List<Long> keys = new ArrayList<>();
+        KeyIndex keyIndex = new KeyIndex(0);
+        long nextKey = 0;
+        for (int round = 0; round < 20000; round++) {
+            int op = random.nextInt(4);
+            if (op == 0 || keys.isEmpty()) {
+                int position = random.nextInt(keys.size() + 1);
+                int count = 1 + random.nextInt(3);
+                for (int i = 0; i < count; i++) {
+                    keys.add(position, nextKey++);
+                }
+                keyIndex.onInserted(position, count, keysOf(keys));
+            } else if (op == 1) {
+                int position = random.nextInt(keys.size());
+                int count = 1 + random.nextInt(Math.min(3, keys.size() - position));
+                keys.subList(position, position + count).clear();
+                keyIndex.onRemoved(position, count, keysOf(keys));
+            } else if (op == 2) {
+                int from = random.nextInt(keys.size());
+                int to = random.nextInt(keys.size());
+                keys.add(to, keys.remove(from));
+                keyIndex.onMoved(from, to, keysOf(keys));
+            } else {
+                int position = random.nextInt(keys.size());
+                keys.set(position, nextKey++);
+                keyIndex.onChanged(position, 1, keysOf(keys));
+            }
+            long key = random.nextInt((int) nextKey);
+            assertEquals(keys.indexOf(key), keyIndex.positionOf(key, keysOf(keys)));
+        }
+    }
+
+    private static KeyIndex.KeySource keysOf(final List<Long> keys) {
+        return new KeyIndex.KeySource() {
+            @Override
+            public int size() {
+                return keys.size();
+            }
+
+            @Override
+            public boolean hasKey(int position) {
+                return null != keys.get(position);
+            }
+
+            @Override
+            public long getKey(int position) {
+                return keys.get(position);
+            }
+        };
+    }
+}
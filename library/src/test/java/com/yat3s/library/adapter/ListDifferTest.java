@@ -0,0 +1,220 @@
+package com.yat3s.library.adapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ListDifferTest {
+    private static final DiffCallback<Item> CALLBACK = new DiffCallback<Item>() {
+        @Override
+        public boolean areItemsTheSame(Item oldItem, Item newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(Item oldItem, Item newItem) {
+            return oldItem.version == newItem.version;
+        }
+    };
+
+    @Test
+    public void sameList_dispatchesNothing() throws Exception {
+        List<Item> list = generate(new Random(1), 50);
+        Replayer replayer = replay(list, new ArrayList<>(list));
+        assertEquals(0, replayer.operationCount);
+    }
+
+    @Test
+    public void emptyLists_areHandled() throws Exception {
+        List<Item> list = generate(new Random(2), 20);
+        replay(new ArrayList<Item>(), list);
+        replay(list, new ArrayList<Item>());
+        replay(new ArrayList<Item>(), new ArrayList<Item>());
+    }
+
+    @Test
+    public void append_isSingleInsert() throws Exception {
+        List<Item> oldList = generate(new Random(3), 30);
+        List<Item> newList = new ArrayList<>(oldList);
+        for (int i = 0; i < 10; i++) {
+            newList.add(new Item(1000 + i, 0));
+        }
+        Replayer replayer = replay(oldList, newList);
+        assertEquals(1, replayer.operationCount);
+    }
+
+    @Test
+    public void changedContents_dispatchPayloadRuns() throws Exception {
+        DiffCallback<Item> payloadCallback = new DiffCallback<Item>() {
+            @Override
+            public boolean areItemsTheSame(Item oldItem, Item newItem) {
+                return CALLBACK.areItemsTheSame(oldItem, newItem);
+            }
+
+            @Override
+            public boolean areContentsTheSame(Item oldItem, Item newItem) {
+                return CALLBACK.areContentsTheSame(oldItem, newItem);
+            }
+
+            @Override
+            public Object getChangePayload(Item oldItem, Item newItem) {
+                return new ChangePayload(1L << newItem.version);
+            }
+        };
+        List<Item> oldList = new ArrayList<>();
+        List<Item> newList = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            oldList.add(new Item(i, 0));
+        }
+        newList.add(new Item(0, 1));
+        newList.add(new Item(1, 1));
+        newList.add(new Item(2, 2));
+        newList.add(new Item(3, 0));
+        newList.add(new Item(4, 0));
+        newList.add(new Item(5, 1));
+        final List<String> changes = new ArrayList<>();
+        ListDiffer.calculateDiff(oldList, newList, payloadCallback).dispatchUpdatesTo(
+                new Replayer(oldList) {
+                    @Override
+                    public void onChanged(int position, int count, Object payload) {
+                        super.onChanged(position, count, payload);
+                        changes.add(position + "+" + count + ":" + ((ChangePayload) payload)
+                                .getChangedFields());
+                    }
+                });
+        assertEquals("[5+1:2, 2+1:4, 0+2:2]", changes.toString());
+    }
+
+    @Test
+    public void randomPermutations_replayToNewList() throws Exception {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            List<Item> oldList = generate(random, random.nextInt(60));
+            List<Item> newList = mutate(random, oldList);
+            replay(oldList, newList);
+        }
+    }
+
+    @Test
+    public void shuffledLists_replayToNewList() throws Exception {
+        Random random = new Random(7);
+        for (int round = 0; round < 100; round++) {
+            List<Item> oldList = generate(random, 1 + random.nextInt(100));
+            List<Item> newList = new ArrayList<>(oldList);
+            Collections.shuffle(newList, random);
+            replay(oldList, newList);
+        }
+    }
+
+    private static Replayer replay(List<Item> oldList, List<Item> newList) {
+        Replayer replayer = new Replayer(oldList);
+        ListDiffer.calculateDiff(oldList, newList, CALLBACK).dispatchUpdatesTo(replayer);
+        replayer.assertMatches(newList);
+        return replayer;
+    }
+
+    private static List<Item> generate(Random random, int size) {
+        List<Item> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(new Item(i, random.nextInt(3)));
+        }
+        return list;
+    }
+
+    private static List<Item> mutate(Random random, List<Item> oldList) {
+        List<Item> newList = new ArrayList<>(oldList);
+        int edits = random.nextInt(10);
+        for (int i = 0; i < edits; i++) {
+            int action = random.nextInt(4);
+            if (action == 0 || newList.isEmpty()) {
+                newList.add(random.nextInt(newList.size() + 1), new Item(10000 + i, 0));
+            } else if (action == 1) {
+                newList.remove(random.nextInt(newList.size()));
+            } else if (action == 2) {
+                Item item = newList.remove(random.nextInt(newList.size()));
+                newList.add(random.nextInt(newList.size() + 1), item);
+            } else {
+                int position = random.nextInt(newList.size());
+                Item item = newList.get(position);
+                newList.set(position, new Item(item.id, item.version + 1));
+            }
+        }
+        return newList;
+    }
+
+    private static class Item {
+        final int id, version;
+
+        Item(int id, int version) {
+            this.id = id;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Applies the dispatched operations to a copy of the old list, inserted rows are marked as
+     * null and changed rows keep their id with a {@link #CHANGED} version, because the
+     * callback only carries positions.
+     */
+    private static class Replayer implements ListUpdateCallback {
+        static final int CHANGED = -1;
+        final List<Item> list;
+        int operationCount;
+
+        Replayer(List<Item> oldList) {
+            list = new ArrayList<>(oldList);
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            assertTrue(position >= 0 && position <= list.size());
+            for (int i = 0; i < count; i++) {
+                list.add(position, null);
+            }
+            operationCount++;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            assertTrue(position >= 0 && position + count <= list.size());
+            for (int i = 0; i < count; i++) {
+                list.remove(position);
+            }
+            operationCount++;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            list.add(toPosition, list.remove(fromPosition));
+            operationCount++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            assertTrue(position >= 0 && position + count <= list.size());
+            for (int i = 0; i < count; i++) {
+                list.set(position + i, new Item(list.get(position + i).id, CHANGED));
+            }
+            operationCount++;
+        }
+
+        void assertMatches(List<Item> newList) {
+            assertEquals(newList.size(), list.size());
+            for (int i = 0; i < newList.size(); i++) {
+                Item item = list.get(i);
+                if (null != item) {
+                    assertEquals(newList.get(i).id, item.id);
+                    if (item.version != CHANGED) {
+                        assertEquals(newList.get(i).version, item.version);
+                    }
+                }
+            }
+        }
+    }
+}
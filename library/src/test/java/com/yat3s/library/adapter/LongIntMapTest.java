@@ -0,0 +1,46 @@
+package com.yat3s.library.adapter;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongIntMapTest {
+
+    @Test
+    public void zeroKey_isSupported() throws Exception {
+        LongIntMap map = new LongIntMap();
+        assertFalse(map.containsKey(0));
+        map.put(0, 7);
+        assertTrue(map.containsKey(0));
+        assertEquals(7, map.get(0, -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void randomPuts_matchHashMap() throws Exception {
+        Random random = new Random(42);
+        LongIntMap map = new LongIntMap(2);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            // Ids which only differ in high bits, or in low bits
+            long key = random.nextBoolean() ? (long) random.nextInt(3000) << 40 :
+                    1000000000000L + random.nextInt(3000);
+            map.put(key, i);
+            expected.put(key, i);
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey(), -1));
+        }
+        assertEquals(-1, map.get(Long.MIN_VALUE, -1));
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(1000000000001L));
+    }
+}
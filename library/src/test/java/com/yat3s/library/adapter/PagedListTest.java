@@ -0,0 +1,121 @@
+package com.yat3s.library.adapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PagedListTest {
+
+    @Test
+    public void get_returnsPlaceholderUntilPageIsLoaded() throws Exception {
+        QueueExecutor executor = new QueueExecutor();
+        FakeLoader loader = new FakeLoader();
+        PagedList<String> pagedList = new PagedList<>(loader, 95, 10, executor, executor);
+        RecordingCallback callback = new RecordingCallback();
+        pagedList.setCallback(callback);
+
+        assertEquals(95, pagedList.size());
+        assertNull(pagedList.get(2));
+        // Same page is not requested twice while it is loading
+        assertNull(pagedList.get(3));
+        executor.runAll();
+
+        assertEquals("item 2", pagedList.get(2));
+        assertEquals(1, loader.mLoadCount);
+        assertEquals("0+10", callback.mRanges.get(0));
+        assertEquals(95, pagedList.size());
+    }
+
+    @Test
+    public void get_loadsNeighbourPageOfTheHalf() throws Exception {
+        QueueExecutor executor = new QueueExecutor();
+        FakeLoader loader = new FakeLoader();
+        PagedList<String> pagedList = new PagedList<>(loader, 95, 10, executor, executor);
+
+        pagedList.get(47);
+        executor.runAll();
+        assertTrue(pagedList.isLoaded(40));
+        assertTrue(pagedList.isLoaded(50));
+        assertFalse(pagedList.isLoaded(30));
+
+        pagedList.get(92);
+        executor.runAll();
+        // Last page is short
+        assertEquals("item 94", pagedList.get(94));
+        assertTrue(pagedList.isLoaded(80));
+        assertEquals(35, pagedList.getLoadedItemCount());
+    }
+
+    @Test
+    public void budget_evictsFarthestPages() throws Exception {
+        QueueExecutor executor = new QueueExecutor();
+        FakeLoader loader = new FakeLoader();
+        PagedList<String> pagedList = new PagedList<>(loader, 1000, 10, executor, executor);
+        RecordingCallback callback = new RecordingCallback();
+        pagedList.setCallback(callback);
+        pagedList.setMaxLoadedItems(30);
+
+        for (int position = 0; position < 100; position += 5) {
+            pagedList.get(position);
+            executor.runAll();
+        }
+        assertTrue(pagedList.getLoadedItemCount() <= 30);
+        assertFalse(pagedList.isLoaded(0));
+        assertTrue(pagedList.isLoaded(95));
+        assertTrue(callback.mRanges.contains("0+10"));
+
+        // Evicted page shows placeholder and is loaded again
+        assertNull(pagedList.get(0));
+        executor.runAll();
+        assertEquals("item 0", pagedList.get(0));
+        assertEquals(1000, pagedList.size());
+    }
+
+    private static class FakeLoader implements PagedList.PageLoader<String> {
+        int mLoadCount;
+
+        @Override
+        public List<String> loadPage(int startPosition, int loadSize) {
+            mLoadCount++;
+            List<String> items = new ArrayList<>();
+            for (int i = 0; i < loadSize; i++) {
+                items.add("item " + (startPosition + i));
+            }
+            return items;
+        }
+    }
+
+    private static class RecordingCallback implements PagedList.Callback {
+        final List<String> mRanges = new ArrayList<>();
+
+        @Override
+        public void onItemRangeChanged(int position, int count) {
+            mRanges.add(position + "+" + count);
+        }
+    }
+
+    /**
+     * Runs commands when told, like a background thread and a main thread in one.
+     */
+    private static class QueueExecutor implements Executor {
+        final List<Runnable> mCommands = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            mCommands.add(command);
+        }
+
+        void runAll() {
+            while (!mCommands.isEmpty()) {
+                mCommands.remove(0).run();
+            }
+        }
+    }
+}
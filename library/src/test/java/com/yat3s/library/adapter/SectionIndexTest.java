@@ -0,0 +1,250 @@
+package com.yat3s.library.adapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SectionIndexTest {
+
+    @Test
+    public void build_mapsPositionsToSections() throws Exception {
+        final List<String> names = list("Adam", "Alice", "Bob", "Carl", "Cindy", "Cory");
+        SectionIndex sectionIndex = SectionIndex.build(names.size(), keysOf(names));
+        assertEquals(3, sectionIndex.getSectionCount());
+        assertEquals(0, sectionIndex.getSectionForPosition(1));
+        assertEquals(1, sectionIndex.getSectionForPosition(2));
+        assertEquals(2, sectionIndex.getSectionForPosition(5));
+        assertEquals(3, sectionIndex.getSectionStart(2));
+        assertEquals(-1, sectionIndex.getSectionForPosition(6));
+    }
+
+    @Test
+    public void randomUpdates_matchFullBuild() throws Exception {
+        Random random = new Random(3);
+        List<String> names = new ArrayList<>();
+        SectionIndex sectionIndex = SectionIndex.build(0, keysOf(names));
+        for (int round = 0; round < 5000; round++) {
+            int op = random.nextInt(4);
+            if (op == 0 || names.isEmpty()) {
+                int position = random.nextInt(names.size() + 1);
+                int count = 1 + random.nextInt(4);
+                for (int i = 0; i < count; i++) {
+                    names.add(position, randomName(random));
+                }
+                assertEquals(true, sectionIndex.onInserted(position, count, keysOf(names)));
+            } else if (op == 1) {
+                int position = random.nextInt(names.size());
+                int count = 1 + random.nextInt(Math.min(4, names.size() - position));
+                for (int i = 0; i < count; i++) {
+                    names.remove(position);
+                }
+                assertEquals(true, sectionIndex.onRemoved(position, count, keysOf(names)));
+            } else if (op == 2) {
+                int from = random.nextInt(names.size());
+                int to = random.nextInt(names.size());
+                names.add(to, names.remove(from));
+                // Same steps as SectionedBaseAdapter takes for a move
+                assertEquals(true, sectionIndex.onRemoved(from, 1, keysOf(names)));
+                assertEquals(true, sectionIndex.onInserted(to, 1, keysOf(names)));
+                assertEquals(true, sectionIndex.onChanged(Math.min(from, to), Math.abs(from -
+                        to) + 1, keysOf(names)));
+            } else {
+                int position = random.nextInt(names.size());
+                names.set(position, randomName(random));
+                assertEquals(true, sectionIndex.onChanged(position, 1, keysOf(names)));
+            }
+            SectionIndex expected = SectionIndex.build(names.size(), keysOf(names));
+            assertEquals(expected.getSectionCount(), sectionIndex.getSectionCount());
+            for (int section = 0; section < expected.getSectionCount(); section++) {
+                assertEquals(expected.getSectionStart(section), sectionIndex.getSectionStart
+                        (section));
+            }
+            assertEquals(names.size(), sectionIndex.size());
+        }
+    }
+
+    @Test
+    public void diffSteps_buildAgainFromReplacedData() throws Exception {
+        AdapterReplayer replayer = new AdapterReplayer(list("1a", "1b", "1c", "1d", "2a"));
+        List<String> newNames = list("1a", "2b", "1b", "1c", "2a");
+        replayer.replaceData(newNames);
+        ListDiffer.calculateDiff(list("1a", "1b", "1c", "1d", "2a"), newNames, NAME_CALLBACK)
+                .dispatchUpdatesTo(replayer);
+        assertMatchesFreshBuild(replayer.finish(), newNames);
+    }
+
+    @Test
+    public void randomEditsBatchesAndDiffs_matchFreshBuild() throws Exception {
+        Random random = new Random(17);
+        int nameCount = 0;
+        AdapterReplayer replayer = new AdapterReplayer(new ArrayList<String>());
+        for (int round = 0; round < 3000; round++) {
+            List<String> names = replayer.data;
+            int kind = random.nextInt(3);
+            if (kind == 0) {
+                // A single edit, the data matches its notification
+                replayer.isNotifyingEdit = true;
+                if (names.isEmpty() || random.nextBoolean()) {
+                    int position = random.nextInt(names.size() + 1);
+                    names.add(position, randomName(random) + nameCount++);
+                    replayer.onInserted(position, 1);
+                } else {
+                    int position = random.nextInt(names.size());
+                    names.remove(position);
+                    replayer.onRemoved(position, 1);
+                }
+                replayer.isNotifyingEdit = false;
+            } else if (kind == 1) {
+                // A batch is dispatched after all of its edits are made
+                List<String> newNames = new ArrayList<>(names);
+                UpdateBatch batch = new UpdateBatch(newNames.size());
+                for (int i = random.nextInt(6); i > 0; i--) {
+                    if (newNames.isEmpty() || random.nextBoolean()) {
+                        int position = random.nextInt(newNames.size() + 1);
+                        newNames.add(position, randomName(random) + nameCount++);
+                        batch.onInserted(position, 1);
+                    } else if (random.nextBoolean()) {
+                        int position = random.nextInt(newNames.size());
+                        newNames.remove(position);
+                        batch.onRemoved(position, 1);
+                    } else {
+                        int from = random.nextInt(newNames.size());
+                        int to = random.nextInt(newNames.size());
+                        newNames.add(to, newNames.remove(from));
+                        batch.onMoved(from, to);
+                    }
+                }
+                replayer.replaceData(newNames);
+                batch.dispatchUpdatesTo(replayer);
+            } else {
+                List<String> oldNames = new ArrayList<>(names);
+                List<String> newNames = new ArrayList<>();
+                for (String name : oldNames) {
+                    if (random.nextInt(4) > 0) {
+                        newNames.add(random.nextInt(newNames.size() + 1), name);
+                    }
+                }
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    newNames.add(random.nextInt(newNames.size() + 1), randomName(random) +
+                            nameCount++);
+                }
+                replayer.replaceData(newNames);
+                ListDiffer.calculateDiff(oldNames, newNames, NAME_CALLBACK).dispatchUpdatesTo
+                        (replayer);
+            }
+            assertMatchesFreshBuild(replayer.finish(), replayer.data);
+        }
+    }
+
+    @Test
+    public void outOfRangeUpdate_isRejected() throws Exception {
+        List<String> names = list("Adam");
+        SectionIndex sectionIndex = SectionIndex.build(names.size(), keysOf(names));
+        assertEquals(false, sectionIndex.onRemoved(0, 2, keysOf(names)));
+        assertEquals(false, sectionIndex.onInserted(3, 1, keysOf(names)));
+    }
+
+    private static final DiffCallback<String> NAME_CALLBACK = new DiffCallback<String>() {
+        @Override
+        public boolean areItemsTheSame(String oldItem, String newItem) {
+            return oldItem.equals(newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(String oldItem, String newItem) {
+            return true;
+        }
+    };
+
+    private static void assertMatchesFreshBuild(SectionIndex sectionIndex, List<String> names) {
+        SectionIndex expected = SectionIndex.build(names.size(), keysOf(names));
+        assertEquals(expected.size(), sectionIndex.size());
+        assertEquals(expected.getSectionCount(), sectionIndex.getSectionCount());
+        for (int section = 0; section < expected.getSectionCount(); section++) {
+            assertEquals(expected.getSectionStart(section), sectionIndex.getSectionStart
+                    (section));
+        }
+    }
+
+    private static String randomName(Random random) {
+        // Few letters, so neighbours often share a section
+        return (char) ('A' + random.nextInt(3)) + "x";
+    }
+
+    private static List<String> list(String... names) {
+        List<String> list = new ArrayList<>();
+        for (String name : names) {
+            list.add(name);
+        }
+        return list;
+    }
+
+    /**
+     * Applies notifications as SectionedBaseAdapter does: in place while a single edit is
+     * notified, otherwise the index is built again from the data once the dispatch is done.
+     */
+    private static class AdapterReplayer implements ListUpdateCallback {
+        final List<String> data;
+        SectionIndex sectionIndex;
+        boolean isNotifyingEdit;
+        private boolean isStale;
+
+        AdapterReplayer(List<String> data) {
+            this.data = data;
+            sectionIndex = SectionIndex.build(data.size(), keysOf(data));
+        }
+
+        void replaceData(List<String> newData) {
+            data.clear();
+            data.addAll(newData);
+        }
+
+        SectionIndex finish() {
+            if (isStale) {
+                sectionIndex = SectionIndex.build(data.size(), keysOf(data));
+                isStale = false;
+            }
+            return sectionIndex;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            isStale |= !(canUpdateInPlace() && sectionIndex.onInserted(position, count,
+                    keysOf(data)));
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            isStale |= !(canUpdateInPlace() && sectionIndex.onRemoved(position, count,
+                    keysOf(data)));
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            isStale = true;
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            isStale |= !(canUpdateInPlace() && sectionIndex.onChanged(position, count,
+                    keysOf(data)));
+        }
+
+        private boolean canUpdateInPlace() {
+            return !isStale && isNotifyingEdit;
+        }
+    }
+
+    private static SectionIndex.KeySource keysOf(final List<String> names) {
+        return new SectionIndex.KeySource() {
+            @Override
+            public Object getSectionKey(int position) {
+                return names.get(position).charAt(0);
+            }
+        };
+    }
+}
@@ -0,0 +1,160 @@
+package com.yat3s.library.adapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UpdateBatchTest {
+
+    @Test
+    public void insertThenRemove_cancels() throws Exception {
+        UpdateBatch batch = new UpdateBatch(10);
+        batch.onInserted(3, 4);
+        batch.onRemoved(3, 4);
+        assertTrue(batch.isEmpty());
+        Replayer replayer = new Replayer(10);
+        batch.dispatchUpdatesTo(replayer);
+        assertEquals(0, replayer.operationCount);
+    }
+
+    @Test
+    public void adjacentInserts_merge() throws Exception {
+        UpdateBatch batch = new UpdateBatch(10);
+        batch.onInserted(10, 5);
+        batch.onInserted(15, 5);
+        batch.onInserted(12, 1);
+        Replayer replayer = new Replayer(10);
+        batch.dispatchUpdatesTo(replayer);
+        assertEquals(1, replayer.operationCount);
+    }
+
+    @Test
+    public void overlappingChanges_merge() throws Exception {
+        UpdateBatch batch = new UpdateBatch(20);
+        batch.onChanged(2, 5, null);
+        batch.onChanged(5, 5, null);
+        batch.onChanged(10, 1, null);
+        Replayer replayer = new Replayer(20);
+        batch.dispatchUpdatesTo(replayer);
+        assertEquals(1, replayer.operationCount);
+    }
+
+    @Test
+    public void randomOperations_replayToSameList() throws Exception {
+        Random random = new Random(42);
+        for (int round = 0; round < 2000; round++) {
+            int oldSize = random.nextInt(30);
+            Replayer raw = new Replayer(oldSize);
+            UpdateBatch batch = new UpdateBatch(oldSize);
+            boolean withMoves = random.nextBoolean();
+            int operations = random.nextInt(25);
+            for (int i = 0; i < operations; i++) {
+                applyRandomOperation(random, raw, batch, withMoves);
+            }
+            Replayer coalesced = new Replayer(oldSize);
+            batch.dispatchUpdatesTo(coalesced);
+
+            assertEquals(raw.list.size(), coalesced.list.size());
+            for (int i = 0; i < raw.list.size(); i++) {
+                Row expected = raw.list.get(i);
+                Row actual = coalesced.list.get(i);
+                if (expected.oldIndex < 0) {
+                    assertTrue("Row " + i + " should be inserted", actual.oldIndex < 0);
+                } else {
+                    assertEquals(expected.oldIndex, actual.oldIndex);
+                    assertEquals(expected.changed, actual.changed);
+                }
+            }
+            if (!withMoves) {
+                // Moves can scatter a changed range, so only batches without moves are
+                // guaranteed to never dispatch more operations than recorded
+                assertTrue(coalesced.operationCount <= raw.operationCount);
+            }
+        }
+    }
+
+    private static void applyRandomOperation(Random random, Replayer raw, UpdateBatch batch,
+                                             boolean withMoves) {
+        int size = raw.list.size();
+        int action = random.nextInt(4);
+        if (action == 2 && !withMoves) {
+            action = 3;
+        }
+        if (action == 0 || size == 0) {
+            int position = random.nextInt(size + 1);
+            int count = 1 + random.nextInt(4);
+            raw.onInserted(position, count);
+            batch.onInserted(position, count);
+        } else if (action == 1) {
+            int position = random.nextInt(size);
+            int count = 1 + random.nextInt(size - position);
+            raw.onRemoved(position, count);
+            batch.onRemoved(position, count);
+        } else if (action == 2) {
+            int from = random.nextInt(size);
+            int to = random.nextInt(size);
+            raw.onMoved(from, to);
+            batch.onMoved(from, to);
+        } else {
+            int position = random.nextInt(size);
+            int count = 1 + random.nextInt(size - position);
+            raw.onChanged(position, count, null);
+            batch.onChanged(position, count, null);
+        }
+    }
+
+    private static class Row {
+        final int oldIndex;
+        boolean changed;
+
+        Row(int oldIndex) {
+            this.oldIndex = oldIndex;
+        }
+    }
+
+    private static class Replayer implements ListUpdateCallback {
+        final List<Row> list = new ArrayList<>();
+        int operationCount;
+
+        Replayer(int size) {
+            for (int i = 0; i < size; i++) {
+                list.add(new Row(i));
+            }
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            for (int i = 0; i < count; i++) {
+                list.add(position, new Row(-1));
+            }
+            operationCount++;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            list.subList(position, position + count).clear();
+            operationCount++;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            list.add(toPosition, list.remove(fromPosition));
+            operationCount++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            for (int i = position; i < position + count; i++) {
+                if (list.get(i).oldIndex >= 0) {
+                    list.get(i).changed = true;
+                }
+            }
+            operationCount++;
+        }
+    }
+}